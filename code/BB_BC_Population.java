@@ -1,25 +1,54 @@
+import java.util.random.RandomGenerator;
+
 public class BB_BC_Population {
 
-    public Vector[] population;
+    public PopulationMatrix population;
     public Vector centroid;
-    private byte FLAG;
+
+    // the evaluation of the centroid, cached because it only changes when the centroid is replaced
+    public double centroidEval;
+
+    // the centroid computed by the current crunch, it swaps with centroid when it is better
+    private Vector candidate;
+    private ObjectiveFunction function;
     private boolean ORIGINAL;
 
+    // buffered deviates from the stream of this population, each big bang draws a whole block of normals
+    private RandomBlock random;
+
+    // batch evaluations of the population members for the current crunch
+    private double[] evals;
 
     public BB_BC_Population(int size, int dim, byte flag, boolean orig) throws Exception {
+        this(size, dim, ObjectiveRegistry.get(flag), orig);
+    }
+
+    public BB_BC_Population(int size, int dim, ObjectiveFunction function, boolean orig) throws Exception {
+        this(size, dim, function, orig, Rng.current());
+    }
+
+    /**
+     * Construct a population minimizing the supplied function, drawing all randomness from rng
+     * @param size The size of the population
+     * @param dim The dimension of the search space
+     * @param function The objective function to minimize
+     * @param orig true for the original BB-BC disperse, false for my modified version
+     * @param rng The stream this population draws from, typically Rng.forTrial for the current trial
+     * @throws Exception
+     */
+    public BB_BC_Population(int size, int dim, ObjectiveFunction function, boolean orig, RandomGenerator rng) throws Exception {
         
         // used to specify if original BB-BC should be exectured, or my adapted variation
         this.ORIGINAL = orig;
         
         // set global instance parameters 
-        this.FLAG = flag;
+        this.function = function;
 
         // initialize population structure, and vectors inside structure
-        this.population = new Vector[size];
-        Vector domain = SingleObjectiveFunctions.getDomain(flag);
-        for (int i = 0; i < size; i++) {
-            this.population[i] = Vector.randBetween(domain.atIndex(0), domain.atIndex(1), dim);
-        }
+        this.population = PopulationMatrix.randBetween(function.lower(), function.upper(), size, dim, rng);
+        this.evals = new double[size];
+        this.candidate = new Vector(dim);
+        this.random = new RandomBlock(rng, size * dim);
 
         // work out the initial center of gravity
         doBigCrunch();
@@ -27,18 +56,16 @@ public class BB_BC_Population {
 
 
     /**
-     * compute the scaled evaluation of the supplied vector.
+     * compute the scaled evaluation from the supplied evaluation.
      * 
      * The scaled evaluation referes to mass in this context. We need to be careful because the minimums in most of these objective
      * functions is 0.0, and naturally dividing by zero results in an exception. 
      * 
      * As a result, we check if the current evaluation is 0, if so, return Double.MaxVal
-     * @param vec
+     * @param eval the objective function evaluation of a population member
      * @return
-     * @throws Exception
      */
-    public double scaleEvaluate(Vector vec) throws Exception {
-        double eval = SingleObjectiveFunctions.evaluate(vec, this.FLAG);
+    public static double scaleEvaluate(double eval) {
         if (eval == 0.0) {
             return Double.MAX_VALUE;
         }
@@ -49,15 +76,35 @@ public class BB_BC_Population {
      * Do the big bang procedure. This is accomplished by re-initializing particles in the population 
      * around the centroid following a scaled gaussian distribution. The scale is computed as a proportion of 
      * the search domain width, where this proportion decreases over time.
+     * 
+     * The normal deviates of the whole population are drawn in a single block, row i of the population reads
+     * the same index range of the block as it occupies in the population matrix.
      * @param proportion The argument is the current iteration number / total number of iterations to execute.
      * @throws Exception
      */
     public void doBigBang(double proportion) throws Exception {
 
-        for (int i = 0; i <  this.population.length; i++) {
-            // Vector scaleNormVec = Vector.normZeroOne(this.centroid.size()).scale(domWidth).add(this.centroid);
-            Vector scaleNormVec = (this.ORIGINAL) ? theirDisperse(proportion) : myDisperse(proportion);
-            this.population[i] = scaleNormVec;
+        double[] normals = this.random.nextNormalBlock();
+        for (int i = 0; i <  this.population.rows(); i++) {
+            if (this.ORIGINAL)
+                theirDisperse(proportion, i, normals);
+            else
+                myDisperse(proportion, i, normals);
+        }
+    }
+
+    /**
+     * Overwrites the supplied row with centroid + radius * (the row's normal deviates)
+     * @param row
+     * @param radius
+     * @param normals
+     */
+    private void disperse(int row, double radius, double[] normals) {
+        double[] pos = this.population.data();
+        double[] center = this.centroid.data();
+        int off = this.population.offset(row);
+        for (int i = 0; i < center.length; i++) {
+            pos[off + i] = center[i] + radius * normals[off + i];
         }
     }
 
@@ -71,14 +118,14 @@ public class BB_BC_Population {
      * added to the centroid position. This final sum is resulting position of the particle after big bang.
      * 
      * @param proportion represents (x) in the above equation. It is iteration we are on, divided by MAX ITERS from RunConfig.
-     * @return
+     * @param row the population member to disperse
+     * @param normals the normal deviates drawn for this big bang
      */
-    public Vector myDisperse(double proportion) throws Exception {
+    public void myDisperse(double proportion, int row, double[] normals) {
         double k = 0.005;
         double explosion_factor = (Math.pow(k, proportion) - k) / (1 - k);
-        Vector domain = SingleObjectiveFunctions.getDomain(this.FLAG);
-        double domain_width_fact = (domain.atIndex(1) - domain.atIndex(0)) * RunConfig.DOM_WIDTH_FACTOR;
-        return  Vector.normZeroOne(this.centroid.size()).scale(domain_width_fact * explosion_factor).add(this.centroid);
+        double domain_width_fact = (function.upper() - function.lower()) * RunConfig.DOM_WIDTH_FACTOR;
+        disperse(row, domain_width_fact * explosion_factor, normals);
     }
 
 
@@ -86,15 +133,13 @@ public class BB_BC_Population {
      * This is their disperse function as written in the big-bang big-crunch algorithm paper. 
      * 
      * @param proportionIt : It is iteration we are on, divided by MAX ITERS from RunConfig.
-     * @return
+     * @param row the population member to disperse
+     * @param normals the normal deviates drawn for this big bang
      */
-    public Vector theirDisperse(double proportion) throws Exception {
-        Vector domain = SingleObjectiveFunctions.getDomain(this.FLAG);
-        double upper = domain.atIndex(1);
-        Vector random = Vector.normZeroOne(this.centroid.size());
+    public void theirDisperse(double proportion, int row, double[] normals) {
+        double upper = function.upper();
         double iter = proportion * RunConfig.ITERATIONS;
-        random = random.scale(upper / iter);
-        return random.add(this.centroid);
+        disperse(row, upper / iter, normals);
     }
     /**
      * This does 1 iteration of the BB_BC optimization procedure. A current iteration number is required 
@@ -116,15 +161,16 @@ public class BB_BC_Population {
      * This is accomplished by treating walls as "Sticky", where index values are reset to be on the offending bound
      * @param centroid
      * @return
-     * @throws Exception
      */
-    private Vector makeInBound(Vector centroid) throws Exception {
-        Vector bounds = SingleObjectiveFunctions.getDomain(this.FLAG);
-        for (int i = 0; i < centroid.size(); i++) {
-            if (centroid.atIndex(i) < bounds.atIndex(0))
-                centroid.editIndex(i, bounds.atIndex(0));
-            if (centroid.atIndex(i) > bounds.atIndex(1))
-                centroid.editIndex(i, bounds.atIndex(1));
+    private Vector makeInBound(Vector centroid) {
+        double lower = function.lower();
+        double upper = function.upper();
+        double[] c = centroid.data();
+        for (int i = 0; i < c.length; i++) {
+            if (c[i] < lower)
+                c[i] = lower;
+            if (c[i] > upper)
+                c[i] = upper;
         }
         return centroid;
     }
@@ -134,20 +180,34 @@ public class BB_BC_Population {
      * 
      * In this context, mass is defined as the inverse of objective function evaluation. Because we are minimizing, and the absolute minimum
      * for the objective function's is 0, mass approaches infinity as evaluation approaches 0.
-     * @return
+     * 
+     * The population is evaluated in one batch, and the mass weighted sum is then accumulated into the candidate
+     * buffer in a single pass over the population matrix. The candidate replaces the centroid only if it is better,
+     * in which case the two buffers swap, so nothing is allocated and the old centroid is never re-evaluated.
      * @throws Exception
      */
     public void doBigCrunch() throws Exception {
-        // Start by choosing the first particle in the population, and scaling it by (1 / func_eval)
+        // evaluate the whole population in one batch
+        SingleObjectiveFunctions.evaluateBatch(this.population, this.evals, this.function, RunConfig.PARALLEL_BATCH);
 
-        double scaleEvalSum = scaleEvaluate(this.population[0]);
-        Vector sum = this.population[0].scale(scaleEvalSum);
+        double[] pos = this.population.data();
+        double[] sum = this.candidate.data();
+        int dim = sum.length;
+
+        // Start by choosing the first particle in the population, and scaling it by (1 / func_eval)
+        double scaleEvalSum = scaleEvaluate(this.evals[0]);
+        for (int j = 0; j < dim; j++) {
+            sum[j] = scaleEvalSum * pos[j];
+        }
 
         // for each remaining vector in the population, iteratively build up this sum, scaling each vector the same way
-        for (int i = 1; i < this.population.length; i++) {
-            double thisScaleEval = scaleEvaluate(this.population[i]);
+        for (int i = 1; i < this.population.rows(); i++) {
+            double thisScaleEval = scaleEvaluate(this.evals[i]);
             if (thisScaleEval == Double.MAX_VALUE) continue;
-            sum = sum.add(this.population[i].scale(thisScaleEval));
+            int off = this.population.offset(i);
+            for (int j = 0; j < dim; j++) {
+                sum[j] += thisScaleEval * pos[off + j];
+            }
             // check for double overflow before overflow occurs by reordering if (X + Y > Double.MaxValue)
             if (scaleEvalSum > Double.MAX_VALUE - thisScaleEval) {
                 scaleEvalSum = Double.MAX_VALUE;
@@ -155,15 +215,20 @@ public class BB_BC_Population {
             }
             scaleEvalSum += thisScaleEval;
         }
-        // return the summation vector scaled by the sum of the scaled evaluations
+        // the candidate is the summation vector scaled by the sum of the scaled evaluations
+        makeInBound(this.candidate.scaleInPlace(1.0 / scaleEvalSum));
+        double newEval = function.evaluate(this.candidate);
         if (this.centroid == null) {
-            this.centroid = makeInBound(sum.scale(1.0 / scaleEvalSum));
+            // the first centroid is accepted whatever its evaluation
+            this.centroid = this.candidate;
+            this.candidate = new Vector(dim);
+            this.centroidEval = newEval;
         }
-        else {
-            Vector newCentroid = makeInBound(sum.scale(1.0 / scaleEvalSum));
-            double newEval = SingleObjectiveFunctions.evaluate(newCentroid, FLAG);
-            double oldEval = SingleObjectiveFunctions.evaluate(this.centroid, FLAG);
-            this.centroid = (newEval < oldEval) ? newCentroid: this.centroid;
+        else if (newEval < this.centroidEval) {
+            Vector old = this.centroid;
+            this.centroid = this.candidate;
+            this.candidate = old;
+            this.centroidEval = newEval;
         }
     }
 
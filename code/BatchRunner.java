@@ -0,0 +1,120 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a batch of simulations in a single JVM.
+ *
+ * Every (job, trial) pair of the batch is scheduled as its own task on the shared TrialExecutor pool, so idle
+ * threads steal trials from other jobs rather than waiting for the slowest trial of the current job. The results
+ * of a job are written as soon as its last trial finishes, and the wall time of each job is reported at the end.
+ */
+public class BatchRunner {
+
+    /**
+     * Tracks the trials of a single job as they complete
+     */
+    private static class Progress {
+        final SimulationJob job;
+        final AtomicInteger remaining = new AtomicInteger(RunConfig.TRIALS);
+        final AtomicLong start = new AtomicLong();
+        volatile long end;
+
+        Progress(SimulationJob job) {
+            this.job = job;
+        }
+
+        void runTrial(int trial) throws Exception {
+            start.compareAndSet(0, System.nanoTime());
+            job.runTrial(trial);
+            if (remaining.decrementAndGet() == 0) {
+                end = System.nanoTime();
+                job.writeResults();
+            }
+        }
+
+        double seconds() {
+            return (end - start.get()) / 1e9;
+        }
+    }
+
+    /**
+     * Parses the job specifications of the batch. A specification is either a function flag, which stands for
+     * every algorithm on that function, or FLAG:ALGORITHM, such as 7:pso or 3:bb_orig. No specifications at all
+     * stands for every algorithm on every registered function.
+     * @param specs
+     * @return
+     * @throws Exception if a flag or algorithm is not recognized
+     */
+    public static List<SimulationJob> parseJobs(String[] specs) throws Exception {
+        List<SimulationJob> jobs = new ArrayList<>();
+        if (specs.length == 0) {
+            for (byte flag : ObjectiveRegistry.ids()) {
+                for (SimulationJob.Algorithm algorithm : SimulationJob.Algorithm.values())
+                    jobs.add(new SimulationJob(flag, algorithm));
+            }
+            return jobs;
+        }
+        for (String spec : specs) {
+            String[] parts = spec.split(":");
+            byte flag = Byte.parseByte(parts[0]);
+            if (parts.length == 1) {
+                for (SimulationJob.Algorithm algorithm : SimulationJob.Algorithm.values())
+                    jobs.add(new SimulationJob(flag, algorithm));
+            }
+            else {
+                jobs.add(new SimulationJob(flag, SimulationJob.Algorithm.parse(parts[1])));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Runs every trial of every job on the shared pool, and waits for all of them to finish
+     * @param jobs
+     * @throws Exception the first exception thrown by a trial, once every trial has finished
+     */
+    public static void runAll(List<SimulationJob> jobs) throws Exception {
+        long batchStart = System.nanoTime();
+
+        List<Progress> progress = new ArrayList<>(jobs.size());
+        List<Callable<Void>> tasks = new ArrayList<>(jobs.size() * RunConfig.TRIALS);
+        for (SimulationJob job : jobs) {
+            Progress p = new Progress(job);
+            progress.add(p);
+            for (int trial = 0; trial < RunConfig.TRIALS; trial++) {
+                final int t = trial;
+                tasks.add(() -> {
+                    p.runTrial(t);
+                    return null;
+                });
+            }
+        }
+        List<Future<Void>> futures = TrialExecutor.pool().invokeAll(tasks);
+        double total = (System.nanoTime() - batchStart) / 1e9;
+
+        // report per job wall times, before rethrowing any failure
+        System.out.printf("%sBatch of %d jobs x %d trials finished in %.2fs on %d threads%s\n", Utilities.CYAN, jobs.size(), RunConfig.TRIALS, total, RunConfig.TRIAL_THREADS, Utilities.RESET);
+        for (Progress p : progress) {
+            if (p.remaining.get() == 0)
+                System.out.printf("%s%-24s%s %8.2fs\n", Utilities.WHITE, p.job, Utilities.RESET, p.seconds());
+            else
+                System.out.printf("%s%-24s%s %s%d trials failed%s\n", Utilities.WHITE, p.job, Utilities.RESET, Utilities.RED, p.remaining.get(), Utilities.RESET);
+        }
+        for (Future<Void> future : futures) {
+            TrialExecutor.join(future);
+        }
+    }
+
+    /**
+     * @param args the job specifications, see parseJobs
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        runAll(parseJobs(args));
+    }
+
+}
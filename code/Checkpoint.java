@@ -0,0 +1,237 @@
+import java.io.BufferedReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A record of completed units of work (trials of a simulation, cells of a tuning sweep), so that a run which is
+ * killed part way can resume where it stopped rather than starting over.
+ *
+ * Each entry maps the index of a unit to the numbers it produced. The file starts with a signature describing the
+ * run, such as its configuration, and a checkpoint whose signature differs is ignored, so a run never resumes from
+ * the results of a different experiment. No random state needs to be saved, every unit draws from a stream derived
+ * from its own keys (see Rng), so a resumed unit draws exactly what it would have drawn originally. Signatures
+ * should include configuration(), so that changing any setting which affects results invalidates the checkpoint.
+ *
+ * The file is an append-only log, each completed unit is appended as one line, so saving a unit costs only its own
+ * line however many units came before. Appended lines are handed to the operating system straight away, so they
+ * survive the process being killed, and are forced to disk at most once per period. The signature is written to a
+ * temporary file which is then renamed, so a checkpoint never exists without it. When the checkpoint is reopened,
+ * the first line which was cut short by a kill, or which does not parse (after a power loss the file can keep its
+ * length but lose its contents), is dropped along with everything after it. A power loss can therefore cost the
+ * units of up to one period, which are simply run again. Only the position of each line is kept in memory, the
+ * values of a unit are read back from the file when it is restored.
+ */
+public class Checkpoint {
+
+    // RunConfig settings which only affect scheduling, output or checkpointing, never the values a unit produces
+    private static final Set<String> NOT_IN_SIGNATURE = Set.of("TRIAL_THREADS", "BATCH_CHUNKS", "RECORD_MODE",
+        "BINARY_RESULTS", "QUANTILES", "STATS_PARTS", "CHECKPOINTS", "CHECKPOINT_MILLIS");
+
+    private final Path path;
+    private final String signature;
+    private final long periodMillis;
+
+    // the position in the file of the line of each completed unit, and its length without the line break
+    private final TreeMap<Integer, long[]> lines = new TreeMap<>();
+
+    // the file, opened when the checkpoint is resumed or first written to, null until then
+    private FileChannel channel;
+
+    // the length of the complete lines in the file, where the next line is appended
+    private long end;
+
+    private long lastSync = System.currentTimeMillis();
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Opens the checkpoint, indexing its entries if the file exists and was written with the same signature
+     * @param path
+     * @param signature describes the run, must not contain a line break
+     * @param periodMillis appended entries are forced to disk at most this often, 0 forces them on every put
+     * @throws Exception if the file exists but can not be read
+     */
+    public Checkpoint(Path path, String signature, long periodMillis) throws Exception {
+        this.path = path;
+        this.signature = signature;
+        this.periodMillis = periodMillis;
+        if (!Files.exists(path))
+            return;
+        long size = Files.size(path);
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            if (!signature.equals(reader.readLine())) {
+                System.out.printf("%sIgnoring checkpoint %s of a different run%s\n", Utilities.YELLOW, path, Utilities.RESET);
+                return;
+            }
+            end = signature.length() + 1;
+            String line;
+            // a line which runs past the end of the file was cut short, it and anything after it is dropped
+            while ((line = reader.readLine()) != null && end + line.length() + 1 <= size) {
+                Integer key = key(line);
+                if (key == null)
+                    break;
+                lines.put(key, new long[] {end, line.length()});
+                end += line.length() + 1;
+            }
+        }
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (end < size)
+            System.out.printf("%sDropping %d damaged bytes at the end of checkpoint %s%s\n", Utilities.YELLOW, size - end, path, Utilities.RESET);
+        channel.truncate(end);
+        if (!lines.isEmpty())
+            System.out.printf("%sResuming from checkpoint %s, %d entries done%s\n", Utilities.CYAN, path, lines.size(), Utilities.RESET);
+    }
+
+    /**
+     * @param line an entry of the checkpoint
+     * @return the key of the entry, null if the line is not a key followed by numbers
+     */
+    private static Integer key(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            // parseDouble ignores surrounding control characters, such as the NUL bytes of a lost write
+            if (line.charAt(i) <= ' ' || line.charAt(i) > '~')
+                return null;
+        }
+        String[] fields = line.split(",", -1);
+        try {
+            for (int i = 1; i < fields.length; i++)
+                Double.parseDouble(fields[i]);
+            return Integer.parseInt(fields[0]);
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Describes every RunConfig setting which can change the values of a unit, so a new setting is covered unless
+     * it is added to NOT_IN_SIGNATURE, along with whether the SIMD kernels are in use
+     * @return name=value pairs, ordered by name
+     * @throws Exception if a setting can not be read
+     */
+    public static String configuration() throws Exception {
+        Field[] fields = RunConfig.class.getDeclaredFields();
+        Arrays.sort(fields, Comparator.comparing(Field::getName));
+        StringBuilder description = new StringBuilder();
+        for (Field field : fields) {
+            if (!Modifier.isStatic(field.getModifiers()) || NOT_IN_SIGNATURE.contains(field.getName()))
+                continue;
+            Object value = field.get(null);
+            description.append(field.getName()).append('=');
+            description.append((value instanceof double[]) ? Arrays.toString((double[]) value) : String.valueOf(value));
+            description.append(' ');
+        }
+        return description.append("simd=").append(SingleObjectiveFunctions.simdEnabled()).toString();
+    }
+
+    /**
+     * @param key
+     * @return the values saved under this key, null if that unit has not been completed
+     * @throws Exception if the checkpoint can not be read
+     */
+    public synchronized double[] get(int key) throws Exception {
+        long[] line = lines.get(key);
+        if (line == null)
+            return null;
+        ByteBuffer bytes = ByteBuffer.allocate((int) line[1]);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, line[0] + bytes.position()) < 0)
+                throw new Exception("Checkpoint " + path + " truncated");
+        }
+        String[] fields = new String(bytes.array(), StandardCharsets.US_ASCII).split(",");
+        double[] values = new double[fields.length - 1];
+        for (int i = 0; i < values.length; i++)
+            values[i] = Double.parseDouble(fields[i + 1]);
+        return values;
+    }
+
+    /**
+     * @return the number of completed units
+     */
+    public synchronized int size() {
+        return lines.size();
+    }
+
+    /**
+     * @return the largest key saved, -1 if there is none
+     */
+    public synchronized int lastKey() {
+        return lines.isEmpty() ? -1 : lines.lastKey();
+    }
+
+    /**
+     * Records a completed unit by appending its line, and forces the file to disk if the period has passed since
+     * it last was. A key which was saved before is replaced
+     * @param key
+     * @param values
+     * @throws Exception if the checkpoint can not be written
+     */
+    public synchronized void put(int key, double[] values) throws Exception {
+        if (channel == null) {
+            // a new checkpoint replaces any old one only once its signature is on disk
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.writeString(temp, signature + "\n", StandardCharsets.US_ASCII);
+            try (FileChannel written = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                written.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            end = signature.length() + 1;
+        }
+        text.setLength(0);
+        text.append(key);
+        for (double value : values)
+            text.append(',').append(value);
+        long start = end;
+        append(text);
+        lines.put(key, new long[] {start, text.length()});
+        if (System.currentTimeMillis() - lastSync >= periodMillis)
+            save();
+    }
+
+    /**
+     * Forces every appended entry to disk
+     * @throws Exception if the checkpoint can not be written
+     */
+    public synchronized void save() throws Exception {
+        if (channel != null)
+            channel.force(false);
+        lastSync = System.currentTimeMillis();
+    }
+
+    /**
+     * Removes the checkpoint, once the run it belongs to has completed and written its results
+     * @throws Exception
+     */
+    public synchronized void delete() throws Exception {
+        if (channel != null)
+            channel.close();
+        channel = null;
+        lines.clear();
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Writes the characters, which are all ASCII, as a line at the end of the file
+     */
+    private void append(CharSequence line) throws Exception {
+        ByteBuffer bytes = ByteBuffer.allocate(line.length() + 1);
+        for (int i = 0; i < line.length(); i++)
+            bytes.put((byte) line.charAt(i));
+        bytes.put((byte) '\n');
+        bytes.flip();
+        while (bytes.hasRemaining())
+            end += channel.write(bytes, end);
+    }
+
+}
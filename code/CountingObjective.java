@@ -0,0 +1,159 @@
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorates an objective function with a count of the evaluations made through it.
+ *
+ * The count is a striped LongAdder, so evaluations from the chunks of a parallel batch do not contend on a single
+ * counter. Wrapping a separable function through wrap() keeps it separable, so delta evaluation still applies.
+ * Optimizers which score a candidate without calling evaluate, such as DE's delta evaluation, add those scores
+ * through record(), and re-score points they were already charged for through uncounted().
+ *
+ * A counter may also enforce a budget of evaluations. Once the budget is spent, evaluate refuses to evaluate and
+ * throws Exhausted instead, in the middle of an iteration if need be, so no optimizer can ever use more than its
+ * budget. Whatever drives the optimizer catches Exhausted and takes the best found so far. The budget is a single
+ * atomic counter, so each evaluation of a budgeted function is charged exactly once even in a parallel batch.
+ */
+public class CountingObjective implements ObjectiveFunction {
+
+    /**
+     * Thrown by evaluate once the budget of evaluations has been spent
+     */
+    public static class Exhausted extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Exhausted(long budget) {
+            super("Budget of " + budget + " evaluations spent");
+        }
+    }
+
+    private final ObjectiveFunction inner;
+    private final LongAdder evaluations = new LongAdder();
+
+    // the budget of evaluations, 0 for no limit, and the part of it which has not been spent
+    private final long budget;
+    private final AtomicLong unspent;
+
+    protected CountingObjective(ObjectiveFunction inner, long budget) {
+        this.inner = inner;
+        this.budget = budget;
+        this.unspent = new AtomicLong(budget);
+    }
+
+    /**
+     * @param function
+     * @return a new counter around the function, which is also a SeparableObjective if the function is
+     */
+    public static CountingObjective wrap(ObjectiveFunction function) {
+        return wrap(function, 0);
+    }
+
+    /**
+     * @param function
+     * @param budget the number of evaluations allowed, 0 for no limit
+     * @return a new counter around the function which throws Exhausted once the budget is spent, and is also a
+     * SeparableObjective if the function is
+     */
+    public static CountingObjective wrap(ObjectiveFunction function, long budget) {
+        if (function instanceof SeparableObjective)
+            return new Separable((SeparableObjective) function, budget);
+        return new CountingObjective(function, budget);
+    }
+
+    /**
+     * Adds n evaluations to the count of function, if it is counting. They are also charged to its budget, the
+     * caller should check remaining() first
+     * @param function
+     * @param n
+     */
+    public static void record(ObjectiveFunction function, long n) {
+        if (function instanceof CountingObjective) {
+            CountingObjective counter = (CountingObjective) function;
+            counter.evaluations.add(n);
+            if (counter.budget > 0)
+                counter.unspent.addAndGet(-n);
+        }
+    }
+
+    /**
+     * @param function
+     * @return the evaluations left in the budget of function, Long.MAX_VALUE if it has no budget
+     */
+    public static long remaining(ObjectiveFunction function) {
+        if (function instanceof CountingObjective && ((CountingObjective) function).budget > 0)
+            return Math.max(0, ((CountingObjective) function).unspent.get());
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * @param function
+     * @return the function with its counter removed if it is counting, for re-scoring a point which was counted before
+     */
+    public static ObjectiveFunction uncounted(ObjectiveFunction function) {
+        return (function instanceof CountingObjective) ? ((CountingObjective) function).inner : function;
+    }
+
+    /**
+     * @return the number of evaluations made so far
+     */
+    public long count() {
+        return evaluations.sum();
+    }
+
+    /**
+     * @return the function being counted
+     */
+    public ObjectiveFunction inner() {
+        return inner;
+    }
+
+    public double evaluate(double[] x, int off, int len) {
+        if (budget > 0 && unspent.getAndDecrement() <= 0)
+            throw new Exhausted(budget);
+        evaluations.increment();
+        return inner.evaluate(x, off, len);
+    }
+
+    public double lower() {
+        return inner.lower();
+    }
+
+    public double upper() {
+        return inner.upper();
+    }
+
+    public String name() {
+        return inner.name();
+    }
+
+    public OptionalDouble optimum() {
+        return inner.optimum();
+    }
+
+    public boolean inDomain(double[] x, int off, int len) {
+        return inner.inDomain(x, off, len);
+    }
+
+    /**
+     * A counter around a separable function, the terms themselves are not counted as evaluations
+     */
+    private static class Separable extends CountingObjective implements SeparableObjective {
+
+        private final SeparableObjective separable;
+
+        Separable(SeparableObjective inner, long budget) {
+            super(inner, budget);
+            this.separable = inner;
+        }
+
+        public double term(double xi, int i) {
+            return separable.term(xi, i);
+        }
+
+        public double offset(int len) {
+            return separable.offset(len);
+        }
+    }
+
+}
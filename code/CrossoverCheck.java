@@ -0,0 +1,258 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Checks both crossovers of DE against their distributions, and that crossOver reaches the one RunConfig.DE_BINOMIAL
+ * selects.
+ *
+ * Binomial crossover (DE/rand/1/bin): every coordinate but j_rand crosses from the mutant independently with
+ * probability CR, and j_rand always does, so the number of crossed coordinates of a trial is 1 + Binomial(D - 1, CR),
+ * with mean CR * D + (1 - CR). Its sample mean over many trials must lie within a few standard errors of that. With
+ * CR = 0 only j_rand crosses, so every trial must differ from its target in exactly one coordinate, and that
+ * coordinate must be uniform over the D coordinates.
+ *
+ * Exponential crossover (DE/rand/1/exp): the crossed coordinates are one run, wrapping around, which starts at a
+ * uniform coordinate and continues with probability CR up to D coordinates, so P(length >= l) = CR^(l - 1). Every
+ * trial must cross one unbroken run, its mean length must match the distribution, and with CR = 0 the single crossed
+ * coordinate must be uniform. The run lengths are also compared with the crossover DE used before it was rewritten,
+ * whose loop is kept below as the reference: the two sample means must agree within a few standard errors.
+ *
+ * DE reserves the most uniform deviates a generation can draw before it starts, so its random block is never
+ * refilled part way through a generation. That is checked by running generations at CR = 1 and a large F, which
+ * take every coordinate from the mutant and push many out of the domain, so each generation draws close to its most.
+ *
+ * Run with java CrossoverCheck, exits with status 1 if a crossover does not match.
+ */
+public class CrossoverCheck {
+
+    private static final int DIM = 20;
+    private static final int SIZE = 10;
+    private static final int SAMPLES = 200_000;
+    private static final double[] CRS = {0.0, 0.1, 0.47, 0.9, 1.0};
+
+    // the number of standard errors the sample mean may differ from the expected mean by
+    private static final double Z = 5.0;
+
+    // the 0.999999 quantile of the chi-square distribution with DIM - 1 = 19 degrees of freedom
+    private static final double CHI_SQUARE_LIMIT = 63.8;
+
+    // the generations run when checking that the random block is not refilled part way through one
+    private static final int GENERATIONS = 2000;
+
+    // the crossover probability at which the dispatch is checked, where the two crossovers differ the most
+    private static final double DISPATCH_CR = 0.47;
+
+    /**
+     * A crossover of DE_Population, building the trial row of the target
+     */
+    private interface Crossover {
+        void cross(DE_Population population, int target, int a, int b, int c);
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean passed = true;
+        for (double cr : CRS)
+            passed &= checkBinomial(cr);
+        for (double cr : CRS)
+            passed &= checkExponential(cr);
+        passed &= checkDispatch();
+        passed &= checkRefills();
+        if (!passed) {
+            System.out.printf("%sDE crossover does not match its distribution, or refilled its random block part way through a generation%s\n", Utilities.RED, Utilities.RESET);
+            System.exit(1);
+        }
+        System.out.printf("%sDE crossover matches its distribution, and never refilled its random block part way through a generation%s\n", Utilities.GREEN, Utilities.RESET);
+    }
+
+    /**
+     * Builds SAMPLES binomial trials with crossover probability cr, and compares the crossed coordinates with their
+     * distribution
+     * @param cr
+     * @return true if they match
+     * @throws Exception
+     */
+    private static boolean checkBinomial(double cr) throws Exception {
+        long[] single = new long[DIM];
+        int[] counts = sample(cr, "binomial", DE_Population::binomialCrossOver, single);
+        if (counts == null)
+            return false;
+        double expected = cr * DIM + (1 - cr);
+        double error = Math.sqrt((DIM - 1) * cr * (1 - cr) / SAMPLES);
+        return matches("binomial", cr, counts, expected, error) & uniform("binomial", cr, single);
+    }
+
+    /**
+     * Builds SAMPLES exponential trials with crossover probability cr, and compares the lengths of their runs with
+     * the distribution and with the original crossover
+     * @param cr
+     * @return true if they match
+     * @throws Exception
+     */
+    private static boolean checkExponential(double cr) throws Exception {
+        long[] single = new long[DIM];
+        int[] counts = sample(cr, "exponential", DE_Population::exponentialCrossOver, single);
+        if (counts == null)
+            return false;
+
+        // P(length = l) is CR^(l - 1) * (1 - CR) below DIM, and the rest of the mass sits on DIM
+        double expected = 0.0;
+        double square = 0.0;
+        for (int l = 1; l <= DIM; l++) {
+            double p = (l < DIM) ? Math.pow(cr, l - 1) * (1 - cr) : Math.pow(cr, DIM - 1);
+            expected += l * p;
+            square += (double) l * l * p;
+        }
+        double deviation = Math.sqrt(square - expected * expected);
+        boolean passed = matches("exponential", cr, counts, expected, deviation / Math.sqrt(SAMPLES));
+
+        // the run lengths of the original crossover, from a stream of its own
+        RandomGenerator rng = Rng.create(Rng.derive("original crossover".hashCode(), Double.doubleToLongBits(cr)));
+        long original = 0;
+        for (int sample = 0; sample < SAMPLES; sample++)
+            original += originalRunLength(cr, rng);
+        double mean = mean(counts);
+        double originalMean = (double) original / SAMPLES;
+        boolean agrees = Math.abs(mean - originalMean) <= Z * deviation * Math.sqrt(2.0 / SAMPLES) + 1e-12;
+        System.out.printf("%sexponential CR %s %smean run %.4f, original crossover %.4f%s\n", (agrees) ? Utilities.GREEN : Utilities.RED, cr, Utilities.WHITE, mean, originalMean, Utilities.RESET);
+        return passed & agrees & uniform("exponential", cr, single);
+    }
+
+    /**
+     * Builds SAMPLES trials through crossOver, and checks their mean number of crossed coordinates matches the
+     * crossover RunConfig.DE_BINOMIAL selects rather than the other one
+     * @return true if crossOver reaches the selected crossover
+     * @throws Exception
+     */
+    private static boolean checkDispatch() throws Exception {
+        int[] counts = sample(DISPATCH_CR, "dispatched", DE_Population::crossOver, new long[DIM]);
+        if (counts == null)
+            return false;
+        double binomial = DISPATCH_CR * DIM + (1 - DISPATCH_CR);
+        double exponential = (1 - Math.pow(DISPATCH_CR, DIM)) / (1 - DISPATCH_CR);
+        double mean = mean(counts);
+        boolean reachedBinomial = Math.abs(mean - binomial) < Math.abs(mean - exponential);
+        boolean passed = reachedBinomial == RunConfig.DE_BINOMIAL;
+        System.out.printf("%sdispatched CR %s %smean crossed %.4f, so crossOver reaches %s crossover, DE_BINOMIAL is %s%s\n", (passed) ? Utilities.GREEN : Utilities.RED, DISPATCH_CR, Utilities.WHITE, mean, (reachedBinomial) ? "binomial" : "exponential", RunConfig.DE_BINOMIAL, Utilities.RESET);
+        return passed;
+    }
+
+    /**
+     * Builds SAMPLES trials with the crossover, checking each one crosses at least one coordinate, and that the
+     * exponential crossover crosses one unbroken run
+     * @param cr
+     * @param name describes the crossover
+     * @param crossover
+     * @param single counts, for each coordinate, the trials which crossed only that coordinate
+     * @return the number of coordinates each trial crossed, null if a trial crossed none or a broken run
+     * @throws Exception
+     */
+    private static int[] sample(double cr, String name, Crossover crossover, long[] single) throws Exception {
+        RandomGenerator rng = Rng.create(Rng.derive("crossover".hashCode(), name.hashCode(), Double.doubleToLongBits(cr)));
+        // Ackley is not separable, so the population keeps no delta evaluation state
+        DE_Population population = new DE_Population(new double[] {0.5, cr}, SIZE, DIM, SingleObjectiveFunctions.ACKLEY, rng);
+        double[] pop = population.population.data();
+        double[] trial = population.trials.data();
+        boolean exponential = name.equals("exponential");
+
+        int[] counts = new int[SAMPLES];
+        for (int sample = 0; sample < SAMPLES; sample++) {
+            int target = sample % SIZE;
+            int offP = population.population.offset(target);
+            int offT = population.trials.offset(target);
+            crossover.cross(population, target, (target + 1) % SIZE, (target + 2) % SIZE, (target + 3) % SIZE);
+            int count = 0;
+            int last = -1;
+            // the coordinates where a crossed run begins, going around the trial
+            int starts = 0;
+            for (int j = 0; j < DIM; j++) {
+                boolean crossed = trial[offT + j] != pop[offP + j];
+                boolean before = trial[offT + (j + DIM - 1) % DIM] != pop[offP + (j + DIM - 1) % DIM];
+                if (crossed) {
+                    count++;
+                    last = j;
+                    if (!before)
+                        starts++;
+                }
+            }
+            if (count == 0) {
+                System.out.printf("%s%s CR %s: a trial took no coordinate from its mutant%s\n", Utilities.RED, name, cr, Utilities.RESET);
+                return null;
+            }
+            if (exponential && count < DIM && starts != 1) {
+                System.out.printf("%s%s CR %s: a trial took %d separate runs from its mutant%s\n", Utilities.RED, name, cr, starts, Utilities.RESET);
+                return null;
+            }
+            if (count == 1)
+                single[last]++;
+            counts[sample] = count;
+        }
+        return counts;
+    }
+
+    /**
+     * @return true if the mean of counts lies within Z standard errors of expected
+     */
+    private static boolean matches(String name, double cr, int[] counts, double expected, double error) {
+        double mean = mean(counts);
+        boolean matches = Math.abs(mean - expected) <= Z * error + 1e-12;
+        System.out.printf("%s%s CR %s %smean crossed %.4f, expected %.4f%s\n", (matches) ? Utilities.GREEN : Utilities.RED, name, cr, Utilities.WHITE, mean, expected, Utilities.RESET);
+        return matches;
+    }
+
+    /**
+     * With CR = 0 every trial crosses a single coordinate, which should be uniform over the coordinates
+     * @return true if CR is not 0, or the coordinates pass a chi-square test of uniformity
+     */
+    private static boolean uniform(String name, double cr, long[] single) {
+        if (cr != 0.0)
+            return true;
+        double chiSquare = 0.0;
+        double perCoordinate = (double) SAMPLES / DIM;
+        for (long observed : single)
+            chiSquare += (observed - perCoordinate) * (observed - perCoordinate) / perCoordinate;
+        boolean uniform = chiSquare <= CHI_SQUARE_LIMIT;
+        System.out.printf("%s%s CR 0 %scrossed coordinate chi-square %.1f on %d dof, limit %.1f%s\n", (uniform) ? Utilities.GREEN : Utilities.RED, name, Utilities.WHITE, chiSquare, DIM - 1, CHI_SQUARE_LIMIT, Utilities.RESET);
+        return uniform;
+    }
+
+    private static double mean(int[] counts) {
+        long sum = 0;
+        for (int count : counts)
+            sum += count;
+        return (double) sum / counts.length;
+    }
+
+    /**
+     * The loop of the crossover DE used before it was rewritten, reduced to the coordinates it changes, with
+     * Math.random replaced by rng
+     * @return the number of coordinates it changes
+     */
+    private static int originalRunLength(double cr, RandomGenerator rng) {
+        int n = (int) (rng.nextDouble() * DIM);
+        // change counter
+        int l = 0;
+        do {
+            // wrap n around if needed
+            n = (n + 1) % DIM;
+            // ensure we are not double changing indicies, in the worst case we change everything once
+            l++;
+        } while (rng.nextDouble() < cr && l < DIM);
+        return l;
+    }
+
+    /**
+     * Runs GENERATIONS generations which draw close to the most deviates a generation can, and checks that none
+     * of them refilled the random block part way through
+     * @return true if the block was never refilled
+     * @throws Exception
+     */
+    private static boolean checkRefills() throws Exception {
+        RandomGenerator rng = Rng.create(Rng.derive("refills".hashCode()));
+        DE_Population population = new DE_Population(new double[] {2.0, 1.0}, SIZE, DIM, SingleObjectiveFunctions.ACKLEY, rng);
+        for (int generation = 0; generation < GENERATIONS; generation++)
+            population.doIteration();
+        long refills = population.random.uniformRefills();
+        System.out.printf("%sF 2 CR 1 %s%d refills part way through %d generations%s\n", (refills == 0) ? Utilities.GREEN : Utilities.RED, Utilities.WHITE, refills, GENERATIONS, Utilities.RESET);
+        return refills == 0;
+    }
+
+}
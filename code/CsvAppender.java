@@ -0,0 +1,154 @@
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams a results matrix to a CSV file one row at a time, in the same layout as Utilities.writeFile: a header of
+ * the recorded iterations, then one row of observations per trial.
+ *
+ * Rows may be appended in any order, as trials finish, but are written in row order. A row is written as soon as
+ * every earlier row has been, and only rows which arrive early are held in memory. The rows written so far can be
+ * read in the file's .part sibling while the run continues, and close renames it over the CSV file once every row
+ * is there, so the CSV file itself is only ever complete.
+ *
+ * Doubles are formatted by StringBuilder.append, into a single reused builder, and copied straight into a buffer
+ * of a FileChannel, so the output is identical to Double.toString without creating a string per entry.
+ */
+public class CsvAppender {
+
+    private final Path path;
+    private final Path temp;
+    private final int rows;
+    private final int cols;
+    private final int granularity;
+
+    // the rows which arrived before some earlier row, waiting to be written
+    private final double[][] pending;
+
+    // the next row to be written
+    private int next;
+
+    private FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    private final StringBuilder text = new StringBuilder(32);
+
+    /**
+     * @param path the CSV file to produce
+     * @param rows the number of rows which will be appended
+     * @param cols the number of entries in each row
+     */
+    public CsvAppender(Path path, int rows, int cols) {
+        this(path, rows, cols, RunConfig.GRANULARITY);
+    }
+
+    /**
+     * @param path the CSV file to produce
+     * @param rows the number of rows which will be appended
+     * @param cols the number of entries in each row
+     * @param granularity the number of iterations between the recorded entries, which labels the header
+     */
+    public CsvAppender(Path path, int rows, int cols, int granularity) {
+        this.path = path;
+        this.temp = path.resolveSibling(path.getFileName() + ".part");
+        this.rows = rows;
+        this.cols = cols;
+        this.granularity = granularity;
+        this.pending = new double[rows][];
+    }
+
+    /**
+     * Appends the row, writing it (and any rows which were waiting for it) if every earlier row has been written
+     * @param row
+     * @param values
+     * @throws Exception if the row was appended before, or has the wrong length, or can not be written
+     */
+    public synchronized void append(int row, double[] values) throws Exception {
+        if (row < 0 || row >= rows)
+            throw new Exception("Row " + row + " out of range for " + path);
+        if (row < next || pending[row] != null)
+            throw new Exception("Row " + row + " already appended to " + path);
+        if (values.length != cols)
+            throw new Exception("Row " + row + " has " + values.length + " entries, expected " + cols);
+        open();
+        if (row != next) {
+            pending[row] = values.clone();
+            return;
+        }
+        writeRow(values);
+        next++;
+        while (next < rows && pending[next] != null) {
+            writeRow(pending[next]);
+            pending[next++] = null;
+        }
+        // make the rows written so far visible
+        drain();
+    }
+
+    /**
+     * Flushes the file to disk and moves it into place
+     * @throws Exception if a row is missing, or the file can not be written
+     */
+    public synchronized void close() throws Exception {
+        if (next < rows)
+            throw new Exception("Row " + next + " never appended to " + path);
+        open();
+        drain();
+        channel.force(true);
+        channel.close();
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Creates the .part file and writes the header, on first use
+     */
+    private void open() throws Exception {
+        if (channel != null)
+            return;
+        channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        for (int col = 0; col < cols; col++) {
+            text.setLength(0);
+            text.append(col * granularity);
+            put(text);
+            put((col < cols - 1) ? ',' : '\n');
+        }
+    }
+
+    private void writeRow(double[] values) throws Exception {
+        for (int col = 0; col < cols; col++) {
+            text.setLength(0);
+            text.append(values[col]);
+            put(text);
+            put((col < cols - 1) ? ',' : '\n');
+        }
+    }
+
+    /**
+     * Copies the characters into the buffer, they are all ASCII so each is a single byte
+     */
+    private void put(CharSequence chars) throws Exception {
+        if (buffer.remaining() < chars.length())
+            drain();
+        for (int i = 0; i < chars.length(); i++)
+            buffer.put((byte) chars.charAt(i));
+    }
+
+    private void put(char c) throws Exception {
+        if (!buffer.hasRemaining())
+            drain();
+        buffer.put((byte) c);
+    }
+
+    /**
+     * Writes the buffered bytes to the channel
+     */
+    private void drain() throws Exception {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+}
@@ -1,13 +1,44 @@
+import java.util.random.RandomGenerator;
+
 public class DE_Population {
 
-    public Vector[] population;
+    public PopulationMatrix population;
     public Vector best;
     public double bestEval;
     private int dimension;
-    private byte FLAG;
+    private ObjectiveFunction function;
     private double F;
     private double CR;
 
+    // buffered deviates from the stream of this population, every random decision of a generation is drawn from here
+    RandomBlock random;
+
+    // the most uniform deviates a generation can draw
+    private final int drawsPerGeneration;
+
+    // scratch rows in which trial vectors are built, row i holds the trial for member i
+    public PopulationMatrix trials;
+
+    // fitness[i] is the evaluation of member i, it is kept up to date through selection so members are never re-evaluated
+    public double[] fitness;
+
+    // batch evaluations of the trial vectors of the current generation
+    private double[] trialEvals;
+
+    // the indices of the 3 members the current trial vector is built from
+    private int[] picks = new int[3];
+
+    // delta evaluation state, only kept when the function is separable and RunConfig.DELTA_EVALUATION is set.
+    // terms and trialTerms hold the per coordinate terms of the members and trials, row i of changed lists the
+    // changedCount[i] coordinates trial i took from its mutant, and trialDelta[i] is trial i's fitness minus member i's
+    private SeparableObjective separable;
+    private PopulationMatrix terms;
+    private PopulationMatrix trialTerms;
+    private int[] changed;
+    private int[] changedCount;
+    private double[] trialDelta;
+    private int generation;
+
 
     /**
      * Initialize GE_Population
@@ -23,104 +54,291 @@ public class DE_Population {
      * @throws Exception
      */
     public DE_Population(double[] params, int size, int dim, byte flag)  throws Exception {
+        this(params, size, dim, ObjectiveRegistry.get(flag));
+    }
+
+    /**
+     * Initialize GE_Population to minimize the supplied objective function
+     * @param params The control parameters of the form {F, CR}
+     * @param size The size of the population
+     * @param dim The dimension of each vector in the population
+     * @param function The objective function to minimize
+     * @throws Exception
+     */
+    public DE_Population(double[] params, int size, int dim, ObjectiveFunction function)  throws Exception {
+        this(params, size, dim, function, Rng.current());
+    }
+
+    /**
+     * Initialize GE_Population to minimize the supplied objective function, drawing all randomness from rng
+     * @param params The control parameters of the form {F, CR}
+     * @param size The size of the population
+     * @param dim The dimension of each vector in the population
+     * @param function The objective function to minimize
+     * @param rng The stream this population draws from, typically Rng.forTrial for the current trial
+     * @throws Exception
+     */
+    public DE_Population(double[] params, int size, int dim, ObjectiveFunction function, RandomGenerator rng)  throws Exception {
+        // the target and 3 further distinct members take part in every crossover
+        if (size < 4)
+            throw new Exception("DE Population Size Must Be At Least 4");
+
         // set global instance parameters 
         this.dimension = dim;
         this.F = params[0];
         this.CR = params[1];
-        this.FLAG = flag;
+        this.function = function;
 
         // initialize population structure, and vectors inside structure
-        this.population = new Vector[size];
-        Vector domain = SingleObjectiveFunctions.getDomain(flag);
-        for (int i = 0; i < size; i++) {
-            this.population[i] = Vector.randBetween(domain.atIndex(0), domain.atIndex(1), dim);
-        }
+        this.population = PopulationMatrix.randBetween(function.lower(), function.upper(), size, dim, rng);
+        this.trials = new PopulationMatrix(size, dim);
+        this.fitness = new double[size];
+        this.trialEvals = new double[size];
+        // per member a generation draws 3 indices, a starting index or j_rand, at most dim - 1 deviates deciding
+        // which coordinates cross, and a repair deviate for each of the at most dim coordinates taken from the mutant
+        this.drawsPerGeneration = size * (2 * dim + 3);
+        this.random = new RandomBlock(rng, drawsPerGeneration);
 
         // search for most fit individual
+        SingleObjectiveFunctions.evaluateBatch(this.population, this.fitness, function, RunConfig.PARALLEL_BATCH);
         int bestDex = 0;
-        double bestEval = SingleObjectiveFunctions.evaluate(this.population[bestDex], flag);
+        double bestEval = this.fitness[bestDex];
         for (int i = 1; i < size; i++) {
-            double thisEval = SingleObjectiveFunctions.evaluate(this.population[i], flag);
+            double thisEval = this.fitness[i];
             if (thisEval < bestEval) {
                 bestEval = thisEval;
                 bestDex = i;
             }
         }
         this.bestEval = bestEval;
-        this.best = population[bestDex].duplicate();
+        this.best = population.rowVector(bestDex);
+
+        if (RunConfig.DELTA_EVALUATION && function instanceof SeparableObjective) {
+            this.separable = (SeparableObjective) function;
+            this.terms = new PopulationMatrix(size, dim);
+            this.trialTerms = new PopulationMatrix(size, dim);
+            this.changed = new int[size * dim];
+            this.changedCount = new int[size];
+            this.trialDelta = new double[size];
+            double[] pos = population.data();
+            double[] t = terms.data();
+            for (int i = 0; i < pos.length; i++) {
+                t[i] = separable.term(pos[i], i % dim);
+            }
+        }
     }
 
 
     /**
-     * Do a single iteration of the simulation procedure, iterate all particles and try to beneficially crossover
+     * Do a single iteration of the simulation procedure, iterate all particles and try to beneficially crossover.
+     * 
+     * The trial vectors of the whole generation are built from the current population first, and then evaluated
+     * in one batch before any member is replaced. The fitness of the members is already known, so a generation
+     * costs exactly one evaluation per member.
+     * 
+     * For a separable function, trials are instead scored from their parent's fitness by updating only the terms
+     * of the coordinates which changed. Every RunConfig.DELTA_REFRESH generations the trials and members are fully
+     * evaluated instead, which bounds the floating point drift of the running sums. A trial which would become the
+     * new all time best is always evaluated exactly.
+     *
+     * Either way a generation is charged one evaluation per trial: an exact re-evaluation is charged instead of the
+     * trial's delta score, and the refresh of the members is not charged, as they were charged when they were trials.
      */
     public void doIteration() throws Exception {
+        generation++;
+        random.reserveUniform(drawsPerGeneration);
 
         // for each population member
-        for (int memdex = 0; memdex < population.length; memdex++) {
+        int size = population.rows();
+        for (int memdex = 0; memdex < size; memdex++) {
             
-            // first we should choose 3 unique indicies on interval [0,(N-1)] 
-            int r1, r2, r3;
-            do {
-                r1 = (int) (Math.random() * population.length);
-                r2 = (int) (Math.random() * population.length);
-                r3 = (int) (Math.random() * population.length);
-            } while (r1 == r2 || r2 == r3 || r1 == r3);
+            // first we should choose 3 unique indicies on interval [0,(N-1)], which also differ from memdex
+            random.nextDistinct(size, memdex, picks);
 
             // now that we have 3 unique indicies, lets get the crossover version of these population members
-            // Step 1, save old member, perform crossover to get new member
-            Vector oldVersion = population[memdex].duplicate();
-            Vector newVersion = crossOver(oldVersion.duplicate(), population[r1], population[r2], population[r3]);
+            // Step 1, build the trial row of this member
+            crossOver(memdex, picks[0], picks[1], picks[2]);
+        }
 
-            // Step 2, get evaluations of old and new members
-            double oldEval = SingleObjectiveFunctions.evaluate(oldVersion, FLAG);
-            double newEval = SingleObjectiveFunctions.evaluate(newVersion, FLAG);
+        // Step 2, get evaluations of the new members in one batch, the old members' evaluations are cached.
+        // A generation whose delta scores would overrun the evaluation budget is evaluated in full instead, so the
+        // budget stops it at exactly the right trial
+        boolean deltaScored = separable != null && generation % RunConfig.DELTA_REFRESH != 0
+            && CountingObjective.remaining(function) >= size;
+        if (!deltaScored) {
+            SingleObjectiveFunctions.evaluateBatch(trials, trialEvals, function, RunConfig.PARALLEL_BATCH);
+            if (separable != null)
+                SingleObjectiveFunctions.evaluateBatch(population, fitness, CountingObjective.uncounted(function), RunConfig.PARALLEL_BATCH);
+        }
+        else {
+            for (int memdex = 0; memdex < size; memdex++) {
+                trialEvals[memdex] = fitness[memdex] + trialDelta[memdex];
+            }
+        }
+
+        // the delta scored trials which were evaluated exactly
+        int exact = 0;
+
+        for (int memdex = 0; memdex < size; memdex++) {
+            double newEval = trialEvals[memdex];
+
+            // a delta scored trial which looks like a new all time best is evaluated exactly, so bestEval carries no drift
+            if (deltaScored && newEval < bestEval) {
+                newEval = function.evaluate(trials.data(), trials.offset(memdex), dimension);
+                exact++;
+            }
 
             // Step 3, Hill climb- lets see if the new member is superiour to the old member
-            // if the new member is superiour, overwrite the old member, else: keep the old member
-            population[memdex] = (newEval < oldEval) ? newVersion.duplicate() : oldVersion.duplicate();
+            // if the new member is superiour, overwrite the old member and its fitness, else: keep the old member
+            if (newEval < fitness[memdex]) {
+                trials.copyRow(memdex, population, memdex);
+                fitness[memdex] = newEval;
+                if (separable != null)
+                    acceptTerms(memdex);
+            }
 
-            // Step 4, we need to check if this member is a new all time best
-            best = (newEval < bestEval) ? newVersion.duplicate(): best;
-            bestEval = (newEval < bestEval) ? newEval: bestEval;
+            // Step 4, we need to check if this member is a new all time best, if so copy it into the best vector
+            if (newEval < bestEval) {
+                best.copyFrom(trials.data(), trials.offset(memdex));
+                bestEval = newEval;
+            }
 
         }
+
+        // each remaining delta score stands in for an evaluation of its trial
+        if (deltaScored)
+            CountingObjective.record(function, size - exact);
     }
 
     /**
-     * Perform crossover as described in the paper by Rainer Storn and Kennith Price
-     * @param orig
+     * Perform crossover as described in the paper by Rainer Storn and Kennith Price, building the trial row of the
+     * target from the mutant a + F * (b - c). This is binomial crossover unless RunConfig.DE_BINOMIAL is turned off.
+     * A mutant coordinate outside the domain is replaced with a uniform draw from the domain, which is only drawn
+     * when it is needed.
+     * @param target index of the member whose trial row is built
+     * @param a
+     * @param b
+     * @param c
+     */
+    public void crossOver(int target, int a, int b, int c) {
+        if (RunConfig.DE_BINOMIAL)
+            binomialCrossOver(target, a, b, c);
+        else
+            exponentialCrossOver(target, a, b, c);
+    }
+
+    /**
+     * Exponential crossover, the trial takes a run of consecutive coordinates from the mutant, beginning at a random
+     * index and wrapping around. The run continues with probability CR, and every other coordinate is the target's.
+     * @param target
      * @param a
      * @param b
      * @param c
-     * @return
-     * @throws Exception
      */
-    public Vector crossOver(Vector orig, Vector a, Vector b, Vector c) throws Exception {
-        
-        int n = (int) (Math.random() * dimension);
-        Vector bounds = SingleObjectiveFunctions.getDomain(FLAG);
+    void exponentialCrossOver(int target, int a, int b, int c) {
+        double[] pop = population.data();
+        double[] trial = trials.data();
+        int offT = trials.offset(target);
+        int offA = population.offset(a);
+        int offB = population.offset(b);
+        int offC = population.offset(c);
+
+        System.arraycopy(pop, population.offset(target), trial, offT, dimension);
+        resetChanges(target);
+        int n = random.nextInt(dimension);
         // change counter
         int l = 0;
         do {
-            // get the crossOver value for this index
-            double tryCrossover = a.atIndex(n) + F * (b.atIndex(n) - c.atIndex(n));
-            // get a backup random value in the domain at this index
-            double backup = bounds.atIndex(0) + (Math.random() * (bounds.atIndex(1) - bounds.atIndex(0)));
-            // if tryCrossover !in domain, assign backup, else assign tryCrossover to this index
-            double assignVal = (tryCrossover > bounds.atIndex(0) && tryCrossover < bounds.atIndex(1)) ? tryCrossover: backup;
-            orig.editIndex(n, assignVal);
-
+            trial[offT + n] = mutate(pop[offA + n], pop[offB + n], pop[offC + n]);
+            if (separable != null)
+                change(target, n, trial[offT + n]);
             // wrap n around if needed
-            n = (n + 1) % dimension;
+            if (++n == dimension)
+                n = 0;
             // ensure we are not double changing indicies, in the worst case we change everything once
             l++;
-        } while (Math.random() < CR && l < dimension);
+        } while (l < dimension && random.nextUniform() < CR);
+    }
+
+    /**
+     * Binomial crossover, DE/rand/1/bin. Each coordinate of the trial is taken from the mutant with probability CR,
+     * and from the target otherwise. Coordinate j_rand always comes from the mutant, so the trial differs from the target.
+     * @param target
+     * @param a
+     * @param b
+     * @param c
+     */
+    void binomialCrossOver(int target, int a, int b, int c) {
+        double[] pop = population.data();
+        double[] trial = trials.data();
+        int offT = trials.offset(target);
+        int offP = population.offset(target);
+        int offA = population.offset(a);
+        int offB = population.offset(b);
+        int offC = population.offset(c);
+
+        resetChanges(target);
+        int jRand = random.nextInt(dimension);
+        for (int j = 0; j < dimension; j++) {
+            if (j == jRand || random.nextUniform() < CR) {
+                trial[offT + j] = mutate(pop[offA + j], pop[offB + j], pop[offC + j]);
+                if (separable != null)
+                    change(target, j, trial[offT + j]);
+            }
+            else {
+                trial[offT + j] = pop[offP + j];
+            }
+        }
+    }
+
+    /**
+     * Forgets the changes recorded for the target's previous trial
+     */
+    private void resetChanges(int target) {
+        if (separable != null) {
+            changedCount[target] = 0;
+            trialDelta[target] = 0.0;
+        }
+    }
 
-        return orig;
+    /**
+     * Records that coordinate j of the target's trial now holds value, and updates the trial's fitness delta
+     */
+    private void change(int target, int j, double value) {
+        int off = terms.offset(target);
+        double term = separable.term(value, j);
+        trialTerms.data()[off + j] = term;
+        trialDelta[target] += term - terms.data()[off + j];
+        changed[off + changedCount[target]++] = j;
+    }
+
+    /**
+     * Copies the terms of the changed coordinates of an accepted trial into its member's terms
+     */
+    private void acceptTerms(int memdex) {
+        int off = terms.offset(memdex);
+        double[] t = terms.data();
+        double[] tt = trialTerms.data();
+        for (int k = 0; k < changedCount[memdex]; k++) {
+            int j = changed[off + k];
+            t[off + j] = tt[off + j];
+        }
+    }
+
+    /**
+     * @return the mutant coordinate a + F * (b - c), or a uniform draw from the domain unless that lies strictly
+     * inside the domain. A mutant on a bound is replaced too, as it always has been
+     */
+    private double mutate(double a, double b, double c) {
+        double mutant = a + F * (b - c);
+        double lower = function.lower();
+        double upper = function.upper();
+        if (!(mutant > lower && mutant < upper))
+            mutant = lower + random.nextUniform() * (upper - lower);
+        return mutant;
     }
 
 
 
     
-}
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Checks DE's delta evaluation of the separable benchmarks against full evaluation.
+ *
+ * DE runs for a few RunConfig.DELTA_REFRESH windows on each separable benchmark, and after every generation the
+ * fitness it holds for each member is compared with a full evaluation of the member. Within a window the running
+ * sums may drift, but only by rounding, so the difference must stay within TOLERANCE of the largest fitness the
+ * sums have carried. After a refresh generation the fitness must equal the full evaluation exactly. A generation
+ * must also be charged exactly one evaluation per member, however its trials were scored.
+ *
+ * Run with java DeltaCheck, exits with status 1 if the delta scores drift or are miscounted.
+ */
+public class DeltaCheck {
+
+    private static final double TOLERANCE = 1e-10;
+
+    // the number of DELTA_REFRESH windows run on each benchmark
+    private static final int WINDOWS = 4;
+
+    public static void main(String[] args) throws Exception {
+        if (!RunConfig.DELTA_EVALUATION) {
+            System.out.printf("%sDelta evaluation is off, nothing to check%s\n", Utilities.YELLOW, Utilities.RESET);
+            return;
+        }
+        boolean passed = true;
+        for (ObjectiveFunction function : ObjectiveRegistry.all()) {
+            if (function instanceof SeparableObjective)
+                passed &= check(function);
+        }
+        if (!passed) {
+            System.out.printf("%sDelta evaluation drifts from full evaluation%s\n", Utilities.RED, Utilities.RESET);
+            System.exit(1);
+        }
+        System.out.printf("%sDelta evaluation agrees with full evaluation%s\n", Utilities.GREEN, Utilities.RESET);
+    }
+
+    /**
+     * Runs DE on the function and compares its delta scored fitness with full evaluation after every generation
+     * @param function
+     * @return true if the fitness stays within tolerance, and the evaluations are counted correctly
+     * @throws Exception
+     */
+    private static boolean check(ObjectiveFunction function) throws Exception {
+        RandomGenerator rng = Rng.create(Rng.derive("delta".hashCode(), function.name().hashCode()));
+        CountingObjective counter = CountingObjective.wrap(function);
+        DE_Population population = new DE_Population(RunConfig.DE_PARAMS, RunConfig.PARTICLES, RunConfig.DIM, counter, rng);
+        int size = population.population.rows();
+
+        // the largest fitness the running sums carry, the rounding error of every update is relative to it
+        double scale = 1.0;
+        for (double eval : population.fitness)
+            scale = Math.max(scale, Math.abs(eval));
+
+        boolean passed = true;
+        double worst = 0.0;
+        int generations = WINDOWS * RunConfig.DELTA_REFRESH;
+        for (int generation = 1; generation <= generations; generation++) {
+            population.doIteration();
+            double drift = 0.0;
+            for (int i = 0; i < size; i++) {
+                double exact = SingleObjectiveFunctions.evaluate(population.population, i, function);
+                drift = Math.max(drift, Math.abs(population.fitness[i] - exact) / scale);
+            }
+            worst = Math.max(worst, drift);
+            boolean refreshed = generation % RunConfig.DELTA_REFRESH == 0;
+            if ((refreshed && drift != 0.0) || !(drift <= TOLERANCE)) {
+                System.out.printf("%s%s generation %d: relative drift %s%s\n", Utilities.RED, function.name(), generation, drift, Utilities.RESET);
+                passed = false;
+            }
+        }
+
+        // the initial population, then one evaluation per member in every generation
+        long expected = (long) size * (generations + 1);
+        if (counter.count() != expected) {
+            System.out.printf("%s%s counted %d evaluations, expected %d%s\n", Utilities.RED, function.name(), counter.count(), expected, Utilities.RESET);
+            passed = false;
+        }
+        System.out.printf("%s%s %slargest relative drift %s, %d evaluations%s\n", (passed) ? Utilities.GREEN : Utilities.RED, function.name(), Utilities.WHITE, worst, counter.count(), Utilities.RESET);
+        return passed;
+    }
+
+}
@@ -18,15 +18,20 @@ public class Driver {
      * @throws Exception If Vector.java is misused
      */
     public static void runPSO(int iterations, int particles, int dims, byte flag) throws Exception {
-        PSO_Swarm swarm = new PSO_Swarm(RunConfig.PSO_PARAMS, particles, dims, flag);
-        for (int iter = 0; iter <= iterations; iter++) {
-            swarm.doUpdate();
+        PSO_Swarm swarm = new PSO_Swarm(RunConfig.PSO_PARAMS, particles, dims, budgeted(flag));
+        try {
+            for (int iter = 0; iter <= iterations; iter++) {
+                swarm.doUpdate();
+            }
+        }
+        catch (CountingObjective.Exhausted e) {
+            System.out.println(e.getMessage());
         }
         System.out.println(SingleObjectiveFunctions.getName(flag) + " PSO found the solution: " + swarm.gBestEval + " for vector\n" + swarm.gBestVec);
     }
 
     /**
-     * Runs DE/Rand/1/BIN Differential Evolution
+     * Runs DE/Rand/1/BIN Differential Evolution, or DE/Rand/1/EXP if RunConfig.DE_BINOMIAL is turned off
      *      This function runs the entire DE evaluation procedure for 1 independent trial, using
      *      the control parameter configurations specified in the method body. Although these 
      *      configurations aren't optimized, they seem to work well across a broad variety of benchmark functions.
@@ -40,9 +45,14 @@ public class Driver {
      */
     public static void runDE(int iterations, int particles, int dims, byte flag) throws Exception {
 
-        DE_Population population = new DE_Population(RunConfig.DE_PARAMS, particles, dims, flag);
-        for (int iter = 0; iter <= iterations; iter++) {
-            population.doIteration();
+        DE_Population population = new DE_Population(RunConfig.DE_PARAMS, particles, dims, budgeted(flag));
+        try {
+            for (int iter = 0; iter <= iterations; iter++) {
+                population.doIteration();
+            }
+        }
+        catch (CountingObjective.Exhausted e) {
+            System.out.println(e.getMessage());
         }
         System.out.println(SingleObjectiveFunctions.getName(flag) + " DE found the solution: " + population.bestEval + " for vector\n" + population.best);
     }
@@ -59,54 +69,37 @@ public class Driver {
      * @throws Exception If Vector.java is misused
      */
     public static void runBB(int iterations, int particles, int dims, byte flag, boolean orig) throws Exception {
-        BB_BC_Population population = new BB_BC_Population(particles, dims, flag, orig);
-        for (int iter = 0; iter <= iterations; iter++) {
-            population.doIteration(iter);
-            System.out.println(SingleObjectiveFunctions.getName(flag) + " BBBC found the solution: " + SingleObjectiveFunctions.evaluate(population.centroid, FLAG) + " for vector\n" + population.centroid);
+        BB_BC_Population population = new BB_BC_Population(particles, dims, budgeted(flag), orig);
+        try {
+            for (int iter = 0; iter <= iterations; iter++) {
+                population.doIteration(iter);
+                System.out.println(SingleObjectiveFunctions.getName(flag) + " BBBC found the solution: " + population.centroidEval + " for vector\n" + population.centroid);
 
+            }
+        }
+        catch (CountingObjective.Exhausted e) {
+            System.out.println(e.getMessage());
         }
         // System.out.println(SingleObjectiveFunctions.getName(flag) + " BBBC found the solution: " + SingleObjectiveFunctions.evaluate(population.centroid, FLAG) + " for vector\n" + population.centroid);
     }
 
 
+    /**
+     * @param flag
+     * @return the benchmark function, which refuses to be evaluated more than RunConfig.MAX_FES times
+     * @throws Exception if the flag is not recognized
+     */
+    private static ObjectiveFunction budgeted(byte flag) throws Exception {
+        return CountingObjective.wrap(ObjectiveRegistry.get(flag), RunConfig.MAX_FES);
+    }
+
     /**
      * Simulates Differential Evolution over Independent trials. 
      *      Configurations for the simulation procedure are found in RunConfig.java
      * @param flag
      */
     public static void simulateDE(byte flag) throws Exception {
-        
-        // init data storage structure if record mode is specified in RunConfig. The Structure is ROWS:Trial x COL:Iteration_of_trial
-        double[][] data = (RunConfig.RECORD_MODE) ? new double[RunConfig.TRIALS][RunConfig.ITERATIONS / RunConfig.GRANULARITY + 1] : null;
-       
-        // simulate DE over independent trials, collect the results into a single structure
-        for (int trial = 0; trial < RunConfig.TRIALS; trial++) {
-
-            System.out.printf("%s%s %sRunning Differential Evolution Trial: %s%d%s\n", Utilities.RED, SingleObjectiveFunctions.getName(FLAG), Utilities.WHITE, Utilities.YELLOW, trial + 1, Utilities.RESET);
-            // set up the population independently, for each trial
-
-            // check RunConfig field, if true we should use tuned values, else use default.
-            double[] params = (RunConfig.OPTIMIZED) ? readControlParams((byte) 2, flag): RunConfig.PSO_PARAMS;
-
-            DE_Population population = new DE_Population(params, RunConfig.PARTICLES, RunConfig.DIM, flag);
-            for (int iter = 0; iter <= RunConfig.ITERATIONS; iter++) {
-          
-                // do a DE generation update
-                population.doIteration();
-                
-                // write data to structure if specified
-                if (iter % RunConfig.GRANULARITY == 0 && RunConfig.RECORD_MODE) {
-                    data[trial][iter/RunConfig.GRANULARITY] = population.bestEval;
-                }
-
-            }
-
-        }
-         // write the recorded data to files if specified by RunConfig.java
-         Utilities.writeFile(data, "de_raw", flag);
-         Utilities.writeFile(Utilities.averageAtTime(data), "de_avg", flag);
-         Utilities.writeFile(Utilities.varAtTime(data), "de_var", flag);
-
+        simulate(new SimulationJob(flag, SimulationJob.Algorithm.DE));
     }
 
     /**
@@ -115,36 +108,7 @@ public class Driver {
      * @param flag
      */
     public static void simulatePSO(byte flag) throws Exception {
-        
-        // init data storage structure if record mode is specified in RunConfig. The Structure is ROWS:Trial x COL:Iteration_of_trial
-        double[][] data = (RunConfig.RECORD_MODE) ? new double[RunConfig.TRIALS][RunConfig.ITERATIONS / RunConfig.GRANULARITY + 1] : null;
-
-        // simulate DE over independent trials, collect the results into a single structure
-        for (int trial = 0; trial < RunConfig.TRIALS; trial++) {
-
-            System.out.printf("%s%s %s Running PSO Trial: %s%d%s\n", Utilities.RED, SingleObjectiveFunctions.getName(FLAG), Utilities.WHITE, Utilities.YELLOW, trial + 1, Utilities.RESET);
-                        
-            
-            // check RunConfig field, if true we should use tuned values, else use default.
-            double[] params = (RunConfig.OPTIMIZED) ? readControlParams((byte) 1, flag): RunConfig.PSO_PARAMS;
-            
-            // set up the population independently, for each trial
-            PSO_Swarm swarm = new PSO_Swarm(params, RunConfig.PARTICLES, RunConfig.DIM, flag);
-            for (int iter = 0; iter <= RunConfig.ITERATIONS; iter++) {
-               
-                // do a PSO procedure update
-                swarm.doUpdate();
-
-                // write data to structure if specified
-                if (iter % RunConfig.GRANULARITY == 0 && RunConfig.RECORD_MODE) {
-                    data[trial][iter/RunConfig.GRANULARITY] = swarm.gBestEval;
-                }
-            }
-        }
-        // write the recorded data to files if specified by RunConfig.java
-        Utilities.writeFile(data, "pso_raw", flag);
-        Utilities.writeFile(Utilities.averageAtTime(data), "pso_avg", flag);
-        Utilities.writeFile(Utilities.varAtTime(data), "pso_var", flag);
+        simulate(new SimulationJob(flag, SimulationJob.Algorithm.PSO));
     }
 
     /**
@@ -172,32 +136,18 @@ public class Driver {
      * @param flag
      */
     public static void simulateBB(byte flag, boolean orig) throws Exception {
-        
-        // init data storage structure if record mode is specified in RunConfig. The Structure is ROWS:Trial x COL:Iteration_of_trial
-        double[][] data = (RunConfig.RECORD_MODE) ? new double[RunConfig.TRIALS][RunConfig.ITERATIONS / RunConfig.GRANULARITY + 1] : null;
-
-        // simulate DE over independent trials, collect the results into a single structure
-        for (int trial = 0; trial < RunConfig.TRIALS; trial++) {
-
-            String version = (orig) ? "Original": "Modified";
-            System.out.printf("%s%s %s Running %s BB Trial: %s%d%s\n", Utilities.RED, SingleObjectiveFunctions.getName(FLAG), Utilities.WHITE, version, Utilities.YELLOW, trial + 1, Utilities.RESET);
-            // set up the population independently, for each trial
-            BB_BC_Population population = new BB_BC_Population(RunConfig.PARTICLES, RunConfig.DIM, flag, orig);
-            for (int iter = 0; iter <= RunConfig.ITERATIONS; iter++) {
-               
-                // do a PSO procedure update
-                population.doIteration(iter);
+        simulate(new SimulationJob(flag, (orig) ? SimulationJob.Algorithm.BB_ORIG: SimulationJob.Algorithm.BB_MOD));
+    }
 
-                // write data to structure if specified
-                if (iter % RunConfig.GRANULARITY == 0 && RunConfig.RECORD_MODE) {
-                    data[trial][iter/RunConfig.GRANULARITY] = SingleObjectiveFunctions.evaluate(population.centroid, FLAG);
-                }
-            }
-        }
-        // write the recorded data to files if specified by RunConfig.java
-        Utilities.writeFile(data, String.format("bb_%s_raw", (orig) ? "orig": "mod"), flag);
-        Utilities.writeFile(Utilities.averageAtTime(data), String.format("bb_%s_avg", (orig) ? "orig": "mod"), flag);
-        Utilities.writeFile(Utilities.varAtTime(data), String.format("bb_%s_var", (orig) ? "orig": "mod"), flag);
+    /**
+     * Runs the independent trials of the supplied simulation concurrently, each trial fills its own row of the
+     * results, and then writes the recorded data to files if specified by RunConfig.java
+     * @param job
+     * @throws Exception
+     */
+    public static void simulate(SimulationJob job) throws Exception {
+        TrialExecutor.runAll(RunConfig.TRIALS, job::runTrial);
+        job.writeResults();
     }
 
 
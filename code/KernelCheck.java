@@ -0,0 +1,115 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Checks the evaluation kernels of every registered benchmark against its reference formula, the element-wise
+ * Vector expressions the benchmarks were originally written with.
+ *
+ * Each benchmark is evaluated at random positions in its domain, of several lengths (so the SIMD kernels also run
+ * their scalar tails) and at a non-zero offset into a larger array, first on the scalar kernels and then on the
+ * SIMD kernels if they can be loaded. The kernels only reorder the floating point operations of the reference, so
+ * every result must agree with it within TOLERANCE, relative to the larger of the reference value and 1.
+ *
+ * Run with java --add-modules jdk.incubator.vector KernelCheck, exits with status 1 if any kernel disagrees.
+ */
+public class KernelCheck {
+
+    private static final double TOLERANCE = 1e-9;
+
+    // the lengths checked, on either side of the common SIMD widths
+    private static final int[] LENGTHS = {2, 3, 4, 7, 8, 9, 16, 20, 33};
+
+    // the positions checked for each benchmark and length
+    private static final int SAMPLES = 100;
+
+    public static void main(String[] args) throws Exception {
+        int failures = check(false);
+        if (SingleObjectiveFunctions.useSimd(true))
+            failures += check(true);
+        else
+            System.out.printf("%sSIMD kernels unavailable, only the scalar kernels were checked%s\n", Utilities.YELLOW, Utilities.RESET);
+        SingleObjectiveFunctions.useSimd(RunConfig.SIMD_KERNELS);
+        if (failures > 0) {
+            System.out.printf("%s%d kernel evaluations disagree with the reference%s\n", Utilities.RED, failures, Utilities.RESET);
+            System.exit(1);
+        }
+        System.out.printf("%sEvery kernel agrees with the reference%s\n", Utilities.GREEN, Utilities.RESET);
+    }
+
+    /**
+     * Compares every benchmark with its reference on the scalar or the SIMD kernels
+     * @param simd
+     * @return the number of evaluations which disagree
+     * @throws Exception
+     */
+    private static int check(boolean simd) throws Exception {
+        SingleObjectiveFunctions.useSimd(simd);
+        String kernels = (simd) ? "SIMD" : "scalar";
+        int failures = 0;
+        for (ObjectiveFunction function : ObjectiveRegistry.all()) {
+            RandomGenerator rng = Rng.create(Rng.derive("kernels".hashCode(), function.name().hashCode()));
+            double worst = 0.0;
+            for (int len : LENGTHS) {
+                for (int sample = 0; sample < SAMPLES; sample++) {
+                    // place the position after some padding, so the offset of the kernels is exercised
+                    int off = 1 + rng.nextInt(len);
+                    double[] x = new double[off + len + 1];
+                    for (int i = 0; i < x.length; i++)
+                        x[i] = function.lower() + (function.upper() - function.lower()) * rng.nextDouble();
+                    double[] pos = new double[len];
+                    System.arraycopy(x, off, pos, 0, len);
+
+                    double expected = reference(function.name(), new Vector(pos));
+                    double actual = function.evaluate(x, off, len);
+                    double error = Math.abs(actual - expected) / Math.max(Math.abs(expected), 1.0);
+                    worst = Math.max(worst, error);
+                    if (!(error <= TOLERANCE)) {
+                        failures++;
+                        System.out.printf("%s%s %s kernel, length %d: %s, reference %s%s\n", Utilities.RED, function.name(), kernels, len, actual, expected, Utilities.RESET);
+                    }
+                }
+            }
+            System.out.printf("%s%s %s%s kernel, largest relative error %s%s\n", Utilities.GREEN, function.name(), Utilities.WHITE, kernels, worst, Utilities.RESET);
+        }
+        return failures;
+    }
+
+    /**
+     * @param name the name of the benchmark
+     * @param pos
+     * @return the value of the benchmark at pos, by its reference formula
+     * @throws Exception if the benchmark has no reference formula
+     */
+    private static double reference(String name, Vector pos) throws Exception {
+        Vector ascending = Vector.Ascending(pos.size());
+        switch (name) {
+            case "Ellip":
+                return ascending.prod(pos.pow(2)).sum();
+            case "Ackley":
+                double firstTerm = -20 * Math.exp(-0.2 * Math.sqrt(pos.pow(2).average()));
+                double secondTerm = Math.exp(pos.scale(2 * Math.PI).cos().average());
+                return firstTerm - secondTerm + 20 + Math.E;
+            case "Rastrigin":
+                return 10 * pos.size() + (pos.pow(2).sub(pos.scale(2 * Math.PI).cos().scale(10)).sum());
+            case "Step":
+                return pos.pow(2).floor().sum();
+            case "CosMix":
+                return -0.1 * pos.scale(5 * Math.PI).cos().sum() + pos.pow(2).sum() + 0.1 * pos.size();
+            case "Quartic":
+                return ascending.prod(pos.pow(4)).sum();
+            case "Zakharov":
+                double weighted = ascending.scale(0.5).prod(pos).sum();
+                return pos.pow(2).sum() + Math.pow(weighted, 2) + Math.pow(weighted, 4);
+            case "Salomon":
+                double term = Math.sqrt(pos.pow(2).sum());
+                return 1 - Math.cos(2 * Math.PI * term) + 0.1 * term;
+            case "BentCigar":
+                return Math.pow(pos.atIndex(0), 2) + 1_000_000.0 * pos.pow(2).sum(1);
+            case "Mishra1":
+                double g = pos.size() - pos.sum(0, pos.size() - 2);
+                return Math.pow(1 + g, g) - 2;
+            default:
+                throw new Exception("No reference formula for " + name);
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+import java.util.OptionalDouble;
+
+/**
+ * A single objective benchmark function to be minimized over a box shaped domain [lower, upper]^D.
+ *
+ * Implementations are looked up once through the ObjectiveRegistry, and then evaluated directly by the engines,
+ * so adding a new benchmark only requires implementing this interface and registering it.
+ */
+public interface ObjectiveFunction {
+
+    /**
+     * Evaluates the len entries of x beginning at off, so rows of a population matrix are evaluated without copying
+     * @param x
+     * @param off
+     * @param len
+     * @return the objective function value at this position
+     */
+    double evaluate(double[] x, int off, int len);
+
+    /**
+     * @return the lower bound of the domain, in every dimension
+     */
+    double lower();
+
+    /**
+     * @return the upper bound of the domain, in every dimension
+     */
+    double upper();
+
+    /**
+     * @return the name of this function, used for result directories and parameter files
+     */
+    String name();
+
+    /**
+     * @return the known global minimum value of this function, empty if it is not known
+     */
+    default OptionalDouble optimum() {
+        return OptionalDouble.empty();
+    }
+
+    /**
+     * Evaluates the supplied vector
+     * @param pos
+     * @return
+     */
+    default double evaluate(Vector pos) {
+        return evaluate(pos.data(), 0, pos.size());
+    }
+
+    /**
+     * Checks whether the len entries of x beginning at off all lie in the domain
+     * @param x
+     * @param off
+     * @param len
+     * @return
+     */
+    default boolean inDomain(double[] x, int off, int len) {
+        double low = lower();
+        double high = upper();
+        for (int i = off; i < off + len; i++) {
+            if (x[i] < low || x[i] > high)
+                return false;
+        }
+        return true;
+    }
+
+}
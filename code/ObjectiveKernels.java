@@ -0,0 +1,27 @@
+/**
+ * An alternative backend for the benchmark evaluation kernels in SingleObjectiveFunctions.
+ *
+ * Each method evaluates the len entries of x beginning at off, and must agree with the scalar kernel of the same
+ * name up to floating point reassociation. Mishra1 has no entry here, it always runs on the scalar kernel.
+ */
+public interface ObjectiveKernels {
+
+    double ellip(double[] x, int off, int len);
+
+    double ackley(double[] x, int off, int len);
+
+    double rastrigin(double[] x, int off, int len);
+
+    double step(double[] x, int off, int len);
+
+    double cosMix(double[] x, int off, int len);
+
+    double quartic(double[] x, int off, int len);
+
+    double zakharov(double[] x, int off, int len);
+
+    double salomon(double[] x, int off, int len);
+
+    double bentCigar(double[] x, int off, int len);
+
+}
@@ -0,0 +1,87 @@
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the available objective functions, keyed both by their flag id and by their name.
+ *
+ * The ten benchmarks in SingleObjectiveFunctions are registered under their historical flags, new benchmarks can
+ * be added at runtime through register().
+ */
+public class ObjectiveRegistry {
+
+    private static final Map<Byte, ObjectiveFunction> BY_ID = new ConcurrentHashMap<>();
+    private static final Map<String, ObjectiveFunction> BY_NAME = new ConcurrentHashMap<>();
+
+    static {
+        register((byte) 1, SingleObjectiveFunctions.ELLIP);
+        register((byte) 2, SingleObjectiveFunctions.ACKLEY);
+        register((byte) 3, SingleObjectiveFunctions.RASTRIGIN);
+        register((byte) 4, SingleObjectiveFunctions.STEP);
+        register((byte) 5, SingleObjectiveFunctions.COSMIX);
+        register((byte) 6, SingleObjectiveFunctions.QUARTIC);
+        register((byte) 7, SingleObjectiveFunctions.ZAKHAROV);
+        register((byte) 8, SingleObjectiveFunctions.SALOMON);
+        register((byte) 9, SingleObjectiveFunctions.BENTCIGAR);
+        register((byte) 10, SingleObjectiveFunctions.MISHRA1);
+    }
+
+    /**
+     * This class is designed to be statically referenced, it should not be instantiable
+     */
+    private ObjectiveRegistry() {
+
+    }
+
+    /**
+     * Registers the function under the supplied id and under its name, replacing any function previously
+     * registered under either key
+     * @param id
+     * @param function
+     */
+    public static synchronized void register(byte id, ObjectiveFunction function) {
+        BY_ID.put(id, function);
+        BY_NAME.put(function.name().toLowerCase(), function);
+    }
+
+    /**
+     * @param id the flag which denotes the function
+     * @return the function registered under this id
+     * @throws Exception if no function is registered under this id
+     */
+    public static ObjectiveFunction get(byte id) throws Exception {
+        ObjectiveFunction function = BY_ID.get(id);
+        if (function == null)
+            throw new Exception("Function FLAG not recognized");
+        return function;
+    }
+
+    /**
+     * @param name the name of the function, ignoring case
+     * @return the function registered under this name
+     * @throws Exception if no function is registered under this name
+     */
+    public static ObjectiveFunction get(String name) throws Exception {
+        ObjectiveFunction function = BY_NAME.get(name.toLowerCase());
+        if (function == null)
+            throw new Exception("Function name not recognized: " + name);
+        return function;
+    }
+
+    /**
+     * @return the id of every registered function, in ascending order
+     */
+    public static Collection<Byte> ids() {
+        return Collections.unmodifiableCollection(new TreeMap<>(BY_ID).keySet());
+    }
+
+    /**
+     * @return every registered function, ordered by id
+     */
+    public static Collection<ObjectiveFunction> all() {
+        return Collections.unmodifiableCollection(new TreeMap<>(BY_ID).values());
+    }
+
+}
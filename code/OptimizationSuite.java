@@ -1,8 +1,49 @@
 import java.io.File;
 import java.io.FileWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.random.RandomGenerator;
 
 class OptimizationSuite {
 
+    /**
+     * The ways of searching the control parameter space, the label is the one passed to the Trainer
+     */
+    public enum Search {
+        // every configuration on the grid gets the full budget
+        GRID("grid"),
+        // successive halving over the grid, only the survivors of cheap short races get the full budget
+        RACE("race"),
+        // tree-structured Parzen estimator, samples the continuous space where past results were good
+        TPE("tpe");
+
+        public final String label;
+
+        Search(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @param label
+         * @return the search with this label, ignoring case
+         * @throws Exception if no search has this label
+         */
+        public static Search parse(String label) throws Exception {
+            for (Search search : values()) {
+                if (search.label.equalsIgnoreCase(label))
+                    return search;
+            }
+            throw new Exception("Search not recognized: " + label);
+        }
+    }
+
     // flags specifying which algorithm we are optimizing parameters for
     private final byte PSO = 1;
     private final byte DE = 2;
@@ -10,8 +51,30 @@ class OptimizationSuite {
     private final int GRANULARITY = 15;
     public int SIMULATIONS = 3;
 
+    // each race keeps 1/RACE_ETA of its entrants, and the next race runs RACE_ETA times as many iterations
+    private final int RACE_ETA = 3;
+
+    // the number of iterations of the first race
+    private final int RACE_MIN_ITERATIONS = 50;
+
+    // the number of configurations the TPE search evaluates in total, and of those how many are sampled uniformly first
+    private final int TPE_EVALUATIONS = 120;
+    private final int TPE_STARTUP = 24;
+
+    // the number of configurations the TPE search proposes (and evaluates in parallel) each round
+    private final int TPE_BATCH = 8;
+
+    // the number of candidates drawn from the good density, of which the most promising are proposed
+    private final int TPE_CANDIDATES = 64;
+
+    // the fraction of the evaluated configurations which model the good density
+    private final double TPE_GAMMA = 0.25;
+
     public double bestResult;
 
+    // the grid cell which produced bestResult, ties between cells go to the earlier one
+    private int bestCell = Integer.MAX_VALUE;
+
     // the list of parameters that we would like to optimize
     public Vector bestParamConfig;
 
@@ -21,9 +84,20 @@ class OptimizationSuite {
     // a flag that will specify which algorithm to optimize (DE, BB, PSO)
     public byte algoFlag;
 
+    // how the control parameter space is searched
+    public Search search;
+
+    // the work completed so far by the search, null if checkpoints are off
+    private Checkpoint checkpoint;
+
     public OptimizationSuite(byte benchFlag, byte algoFlag) {
+        this(benchFlag, algoFlag, Search.GRID);
+    }
+
+    public OptimizationSuite(byte benchFlag, byte algoFlag, Search search) {
         this.algoFlag = algoFlag;
         this.benchFlag = benchFlag;
+        this.search = search;
         this.bestResult = Double.MAX_VALUE;
     }
 
@@ -59,91 +133,571 @@ class OptimizationSuite {
         
         double wBound = 1;
         double cBound = 2;
-        // w possibilities
-        int count = 0;
+        // enumerate the grid, only stable configurations are worth testing
+        List<double[]> cells = new ArrayList<>();
         for (double w = 0; w < wBound; w += wBound/GRANULARITY) {
             for (double c1 = 0; c1 < cBound; c1 += cBound/GRANULARITY) {
                 for (double c2 = 0; c2 < cBound; c2 += cBound/GRANULARITY) {
-                    if (!stablePSO(w, c1, c2)) continue;
-                    // this configuration is stable, lets test it.
-                    double[] config = {w, c1, c2};
-                    double avgResult = 0.0;
-                    for (int i = 0; i < SIMULATIONS; i++) {
-                        PSO_Swarm swarm = new PSO_Swarm(config, RunConfig.PARTICLES, RunConfig.DIM, algoFlag);
-                        for (int iter = 0; iter < RunConfig.ITERATIONS; iter++)
-                            swarm.doUpdate();
-                        double result = swarm.gBestEval;
-                        avgResult += result;                        
-                    }
-                    avgResult /= 3;
-                    // check if this setting is worth saving
-                    if (avgResult < this.bestResult) {
-                        Vector best = new Vector(config);
-                        System.out.printf("%s%s%s Found %s%s%s which yields %s%7f%s < %s%7f%s\n", 
-                            Utilities.BLUE, SingleObjectiveFunctions.getName(benchFlag), Utilities.RESET,
-                            Utilities.YELLOW, best.toString().replaceAll("\n", ""), Utilities.RESET, Utilities.GREEN,
-                            avgResult, Utilities.RESET, Utilities.RED, this.bestResult, Utilities.RESET
-                        );
-                        this.bestResult = avgResult;
-                        this.bestParamConfig = best;
-                    }
-                    count++;
-                    System.out.printf("%s%s:%d/%d%s\n", Utilities.YELLOW, SingleObjectiveFunctions.getName(benchFlag), count, 15*15*15, Utilities.RESET);
+                    if (stablePSO(w, c1, c2))
+                        cells.add(new double[] {w, c1, c2});
                 }
             }
-            System.out.printf("%s%s%s Writing to File\n", Utilities.YELLOW, SingleObjectiveFunctions.getName(benchFlag), Utilities.RESET);  
-            toFile();
-        }   
-        System.out.printf("\n\n%sDONE:%s\tThe Best Setting for %s%s%s is %s%s\n", Utilities.GREEN, Utilities.RESET, 
-        Utilities.GREEN, SingleObjectiveFunctions.getName(this.benchFlag), Utilities.RESET, Utilities.YELLOW, this.bestParamConfig.toString().replaceAll("\n", ""),Utilities.RESET);
-
-        // write this result to a file?
-        toFile();
+        }
+        // the continuous space, the same box restricted to the stable configurations
+        Space space = new Space(new double[] {0, 0, 0}, new double[] {wBound, cBound, cBound}, c -> stablePSO(c[0], c[1], c[2]));
+        ObjectiveFunction function = ObjectiveRegistry.get(benchFlag);
+        tune(cells, space, function.name(), (config, rng) -> {
+            PSO_Swarm swarm = new PSO_Swarm(config, RunConfig.PARTICLES, RunConfig.DIM, CountingObjective.wrap(function, RunConfig.MAX_FES), rng);
+            return iterations -> {
+                try {
+                    for (int iter = 0; iter < iterations; iter++)
+                        swarm.doUpdate();
+                }
+                catch (CountingObjective.Exhausted e) {
+                    // the simulation has spent RunConfig.MAX_FES, it stays at its best so far
+                }
+                return swarm.gBestEval;
+            };
+        });
     }
 
     private void trainDE() throws Exception {
              
         double fBound = 1;
         double crBound = 2;
-        // w possibilities
-        int count = 0;
+        // enumerate the grid
+        List<double[]> cells = new ArrayList<>();
         for (double f = 0; f < fBound; f += fBound/(2*GRANULARITY)) {
             for (double cr = 0; cr < crBound; cr += crBound/(2*GRANULARITY)) {
-                    // this configuration is stable, lets test it.
-                    double[] config = {f, cr};
+                cells.add(new double[] {f, cr});
+            }
+        }
+        // the continuous space, CR is a probability so values above 1 (which the grid does test) behave exactly like 1
+        Space space = new Space(new double[] {0, 0}, new double[] {fBound, 1}, c -> true);
+        ObjectiveFunction function = ObjectiveRegistry.get(benchFlag);
+        tune(cells, space, function.name(), (config, rng) -> {
+            DE_Population pop = new DE_Population(config, RunConfig.PARTICLES, RunConfig.DIM, CountingObjective.wrap(function, RunConfig.MAX_FES), rng);
+            return iterations -> {
+                try {
+                    for (int iter = 0; iter < iterations; iter++)
+                        pop.doIteration();
+                }
+                catch (CountingObjective.Exhausted e) {
+                    // the simulation has spent RunConfig.MAX_FES, it stays at its best so far
+                }
+                return pop.bestEval;
+            };
+        });
+    }
+
+    /**
+     * A single simulation of the algorithm being tuned, which can be continued where it stopped
+     */
+    private interface Simulation {
+        /**
+         * @param iterations the number of further iterations to run
+         * @return the best evaluation found so far
+         */
+        double advance(int iterations) throws Exception;
+    }
+
+    /**
+     * Starts simulations of the algorithm being tuned
+     */
+    private interface Engine {
+        /**
+         * @param config the control parameters to simulate
+         * @param rng the stream to draw from
+         * @return the new simulation, which has not run any iterations yet
+         */
+        Simulation start(double[] config, RandomGenerator rng) throws Exception;
+    }
+
+    /**
+     * A box of control parameter configurations, of which only the feasible ones may be tested
+     */
+    private static class Space {
+        final double[] lower;
+        final double[] upper;
+        final Predicate<double[]> feasible;
+
+        Space(double[] lower, double[] upper, Predicate<double[]> feasible) {
+            this.lower = lower;
+            this.upper = upper;
+            this.feasible = feasible;
+        }
+
+        int dimension() {
+            return lower.length;
+        }
+
+        double width(int d) {
+            return upper[d] - lower[d];
+        }
+    }
+
+    /**
+     * Searches for the best configuration, then reports and writes it to file
+     * @param cells the grid of control parameter configurations, used by the grid and race searches
+     * @param space the continuous space of control parameter configurations, used by the TPE search
+     * @param name the name of the function being tuned on
+     * @param engine
+     * @throws Exception
+     */
+    private void tune(List<double[]> cells, Space space, String name, Engine engine) throws Exception {
+        String signature = String.format("%s %s %s simulations=%d cells=%d race=%d/%d tpe=%d/%d/%d/%d/%s %s",
+            name, algoLabel(), search.label, SIMULATIONS, cells.size(), RACE_ETA, RACE_MIN_ITERATIONS, TPE_EVALUATIONS,
+            TPE_STARTUP, TPE_BATCH, TPE_CANDIDATES, TPE_GAMMA, Checkpoint.configuration());
+        checkpoint = (RunConfig.CHECKPOINTS) ? new Checkpoint(Path.of(paramFile(search.label + ".ckpt")), signature, RunConfig.CHECKPOINT_MILLIS) : null;
+        switch (search) {
+            case RACE:
+                trainRace(cells, name, engine);
+                break;
+            case TPE:
+                trainTPE(space, name, engine);
+                break;
+            default:
+                trainGrid(cells, name, engine);
+        }
+        System.out.printf("\n\n%sDONE:%s\tThe Best Setting for %s%s%s is %s%s\n", Utilities.GREEN, Utilities.RESET, 
+        Utilities.GREEN, name, Utilities.RESET, Utilities.YELLOW, this.bestParamConfig.toString().replaceAll("\n", ""),Utilities.RESET);
+
+        // write this result to a file?
+        toFile();
+        if (checkpoint != null)
+            checkpoint.delete();
+    }
+
+    /**
+     * @param key
+     * @return the values checkpointed for this unit of work, null if it has not been completed
+     * @throws Exception
+     */
+    private double[] completed(int key) throws Exception {
+        return (checkpoint == null) ? null : checkpoint.get(key);
+    }
+
+    /**
+     * Checkpoints the values of a completed unit of work
+     * @param key
+     * @param values
+     * @throws Exception
+     */
+    private void complete(int key, double... values) throws Exception {
+        if (checkpoint != null)
+            checkpoint.put(key, values);
+    }
+
+    /**
+     * Evaluates every cell of the grid as its own task on the shared fork join pool. Each cell averages SIMULATIONS
+     * runs, and run i of cell c always draws from the same stream, so tuning is reproducible whatever the number
+     * of threads. Results are merged into the best setting under a lock, where ties go to the earlier cell, so the
+     * outcome does not depend on the order in which cells finish either. Completed cells are checkpointed with their
+     * results, and skipped when the sweep is resumed.
+     * @param cells the control parameter configurations to test
+     * @param name the name of the function being tuned on
+     * @param engine
+     * @throws Exception
+     */
+    private void trainGrid(List<double[]> cells, String name, Engine engine) throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>(cells.size());
+        for (int c = 0; c < cells.size(); c++) {
+            final int cell = c;
+            tasks.add(() -> {
+                double[] config = cells.get(cell);
+                double[] saved = completed(cell);
+                double avgResult = 0.0;
+                if (saved != null) {
+                    avgResult = saved[0];
+                }
+                else {
+                    for (int i = 0; i < SIMULATIONS; i++) {
+                        avgResult += engine.start(config, stream(cell, i)).advance(RunConfig.ITERATIONS);
+                    }
+                    avgResult /= SIMULATIONS;
+                    complete(cell, avgResult);
+                }
+                offer(cell, config, avgResult, name);
+                System.out.printf("%s%s:%d/%d%s\n", Utilities.YELLOW, name, count.incrementAndGet(), cells.size(), Utilities.RESET);
+                return null;
+            });
+        }
+        for (Future<Void> future : TrialExecutor.pool().invokeAll(tasks)) {
+            TrialExecutor.join(future);
+        }
+    }
+
+    /**
+     * Successive halving over the cells of the grid. Every cell first races for RACE_MIN_ITERATIONS iterations, then
+     * only the best 1/RACE_ETA of them continue for RACE_ETA times as many iterations, and so on until the survivors
+     * reach the full RunConfig.ITERATIONS. Cells are ranked Friedman style, each of the SIMULATIONS runs ranks the
+     * cells separately and a cell's score is the sum of its ranks, so a single wild run does not decide a race.
+     *
+     * Survivors continue their simulations rather than restarting them, and draw from the same streams as the
+     * grid, so a survivor's final result is exactly what the grid would have found for that cell.
+     *
+     * The survivors of every race are checkpointed, along with the cost of the search so far. A resumed search
+     * replays the survivors of the last race from the start of their streams, which lands them exactly where they
+     * were, and carries on racing from there. The replayed iterations are not charged, so the cost printed at the
+     * end is that of an uninterrupted search.
+     * @param cells the control parameter configurations to test
+     * @param name the name of the function being tuned on
+     * @param engine
+     * @throws Exception
+     */
+    private void trainRace(List<double[]> cells, String name, Engine engine) throws Exception {
+        Simulation[][] runs = new Simulation[cells.size()][SIMULATIONS];
+        double[][] results = new double[cells.size()][SIMULATIONS];
+        List<Integer> alive = new ArrayList<>(cells.size());
+        for (int c = 0; c < cells.size(); c++)
+            alive.add(c);
+
+        // the number of iterations each cell's simulations have run
+        int[] progress = new int[cells.size()];
+        int budget = Math.min(RACE_MIN_ITERATIONS, RunConfig.ITERATIONS);
+        int race = 0;
+        // the iterations of the search so far, and the iterations a resumed race's entrants replay without charge
+        long cost = 0;
+        int replayed = 0;
+        if (checkpoint != null && checkpoint.lastKey() >= 0) {
+            race = checkpoint.lastKey();
+            double[] saved = checkpoint.get(race);
+            budget = (int) saved[0];
+            cost = (long) saved[1];
+            replayed = (int) saved[2];
+            alive.clear();
+            for (int k = 3; k < saved.length; k++)
+                alive.add((int) saved[k]);
+        }
+        while (true) {
+            final int target = budget;
+            List<Callable<Void>> tasks = new ArrayList<>(alive.size());
+            for (int cell : alive) {
+                cost += (long) (target - Math.max(progress[cell], replayed)) * SIMULATIONS;
+                tasks.add(() -> {
+                    for (int i = 0; i < SIMULATIONS; i++) {
+                        if (runs[cell][i] == null)
+                            runs[cell][i] = engine.start(cells.get(cell), stream(cell, i));
+                        results[cell][i] = runs[cell][i].advance(target - progress[cell]);
+                    }
+                    progress[cell] = target;
+                    return null;
+                });
+            }
+            for (Future<Void> future : TrialExecutor.pool().invokeAll(tasks)) {
+                TrialExecutor.join(future);
+            }
+            System.out.printf("%s%s:%s %d cells raced to %d iterations\n", Utilities.YELLOW, name, Utilities.RESET, alive.size(), budget);
+            if (budget == RunConfig.ITERATIONS)
+                break;
+
+            // only the survivors continue, the rest are free to be collected
+            List<Integer> survivors = survivors(alive, results);
+            for (int cell : alive) {
+                if (!survivors.contains(cell))
+                    runs[cell] = null;
+            }
+            alive = survivors;
+            budget = (alive.size() == 1) ? RunConfig.ITERATIONS : (int) Math.min((long) budget * RACE_ETA, RunConfig.ITERATIONS);
+
+            // checkpoint the next race, its budget, the cost so far and the iterations its entrants have run,
+            // followed by its entrants
+            double[] entry = new double[3 + alive.size()];
+            entry[0] = budget;
+            entry[1] = cost;
+            entry[2] = target;
+            for (int k = 0; k < alive.size(); k++)
+                entry[3 + k] = alive.get(k);
+            complete(++race, entry);
+        }
+
+        for (int cell : alive) {
+            double avgResult = 0.0;
+            for (int i = 0; i < SIMULATIONS; i++)
+                avgResult += results[cell][i];
+            offer(cell, cells.get(cell), avgResult / SIMULATIONS, name);
+        }
+        System.out.printf("%s%s:%s racing cost %.1f%% of the grid\n", Utilities.YELLOW, name, Utilities.RESET,
+            100.0 * cost / ((double) RunConfig.ITERATIONS * SIMULATIONS * cells.size()));
+    }
+
+    /**
+     * Ranks the cells which are still racing, and returns the best 1/RACE_ETA of them (at least one)
+     * @param alive the cells which are still racing, in ascending order
+     * @param results the latest result of every run of every cell
+     * @return the surviving cells, in ascending order
+     */
+    private List<Integer> survivors(List<Integer> alive, double[][] results) {
+        int size = alive.size();
+        double[] rankSum = new double[size];
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < SIMULATIONS; i++) {
+            final int run = i;
+            for (int k = 0; k < size; k++)
+                order[k] = k;
+            Arrays.sort(order, Comparator.comparingDouble(k -> results[alive.get(k)][run]));
+            // tied cells share the average of their ranks
+            for (int lo = 0; lo < size; ) {
+                int hi = lo;
+                while (hi + 1 < size && results[alive.get(order[hi + 1])][run] == results[alive.get(order[lo])][run])
+                    hi++;
+                for (int k = lo; k <= hi; k++)
+                    rankSum[order[k]] += (lo + hi) / 2.0;
+                lo = hi + 1;
+            }
+        }
+        // the sort is stable, so equal rank sums go to the earlier cell
+        for (int k = 0; k < size; k++)
+            order[k] = k;
+        Arrays.sort(order, Comparator.comparingDouble(k -> rankSum[k]));
+        int keep = Math.max(1, (size + RACE_ETA - 1) / RACE_ETA);
+        Integer[] kept = Arrays.copyOf(order, keep);
+        Arrays.sort(kept);
+        List<Integer> survivors = new ArrayList<>(keep);
+        for (int k : kept)
+            survivors.add(alive.get(k));
+        return survivors;
+    }
+
+    /**
+     * Sequential model-based search with a tree-structured Parzen estimator (Bergstra et al. 2011). The first
+     * TPE_STARTUP configurations are drawn uniformly from the feasible space. From then on the evaluated
+     * configurations are split into the best TPE_GAMMA of them and the rest, a Parzen density is fitted to each,
+     * and each round the TPE_BATCH of TPE_CANDIDATES draws from the good density which maximize the ratio of good
+     * to bad density are evaluated in parallel.
+     *
+     * Every draw is rejected until it is feasible, so PSO only ever tests stable configurations. Configuration k is
+     * simulated on the same streams as cell k of the grid, and each round proposes from its own stream, so the
+     * search is reproducible whatever the number of threads. Evaluated configurations are checkpointed with their
+     * results, and a resumed search restores every complete round and carries on proposing from there.
+     * @param space the continuous space of control parameter configurations
+     * @param name the name of the function being tuned on
+     * @param engine
+     * @throws Exception
+     */
+    private void trainTPE(Space space, String name, Engine engine) throws Exception {
+        List<double[]> configs = new ArrayList<>(TPE_EVALUATIONS);
+        List<Double> results = new ArrayList<>(TPE_EVALUATIONS);
+
+        // restore the complete rounds, each entry holds a configuration followed by its result
+        int restored = 0;
+        while (completed(restored) != null)
+            restored++;
+        restored -= restored % TPE_BATCH;
+        for (int k = 0; k < restored; k++) {
+            double[] saved = completed(k);
+            double[] config = Arrays.copyOf(saved, saved.length - 1);
+            configs.add(config);
+            results.add(saved[saved.length - 1]);
+            offer(k, config, saved[saved.length - 1], name);
+        }
+
+        while (configs.size() < TPE_EVALUATIONS) {
+            int batch = Math.min(TPE_BATCH, TPE_EVALUATIONS - configs.size());
+            RandomGenerator rng = Rng.create(Rng.derive("tpe".hashCode(), algoFlag, benchFlag, configs.size()));
+            List<double[]> proposals = (configs.size() < TPE_STARTUP) ? sampleUniform(space, batch, rng) : proposeTPE(space, configs, results, batch, rng);
+
+            // evaluate the batch in parallel, each configuration averages SIMULATIONS runs
+            int first = configs.size();
+            double[] batchResults = new double[proposals.size()];
+            List<Callable<Void>> tasks = new ArrayList<>(proposals.size());
+            for (int k = 0; k < proposals.size(); k++) {
+                final int index = k;
+                tasks.add(() -> {
                     double avgResult = 0.0;
                     for (int i = 0; i < SIMULATIONS; i++) {
-                        DE_Population pop = new DE_Population(config, RunConfig.PARTICLES, RunConfig.DIM, algoFlag);
-                        for (int iter = 0; iter < RunConfig.ITERATIONS; iter++)
-                            pop.doIteration();
-                        double result = pop.bestEval;
-                        avgResult += result;                        
+                        avgResult += engine.start(proposals.get(index), stream(first + index, i)).advance(RunConfig.ITERATIONS);
                     }
-                    avgResult /= 3;
-                    // check if this setting is worth saving
-                    if (avgResult < this.bestResult) {
-                        Vector best = new Vector(config);
-                        System.out.printf("%s%s%s Found %s%s%s which yields %s%7f%s < %s%7f%s\n", 
-                            Utilities.BLUE, SingleObjectiveFunctions.getName(benchFlag), Utilities.RESET,
-                            Utilities.YELLOW, best.toString().replaceAll("\n", ""), Utilities.RESET, Utilities.GREEN,
-                            avgResult, Utilities.RESET, Utilities.RED, this.bestResult, Utilities.RESET
-                        );
-                        this.bestResult = avgResult;
-                        this.bestParamConfig = best;
+                    batchResults[index] = avgResult / SIMULATIONS;
+                    return null;
+                });
+            }
+            for (Future<Void> future : TrialExecutor.pool().invokeAll(tasks)) {
+                TrialExecutor.join(future);
+            }
+            for (int k = 0; k < proposals.size(); k++) {
+                configs.add(proposals.get(k));
+                results.add(batchResults[k]);
+                offer(first + k, proposals.get(k), batchResults[k], name);
+                double[] entry = Arrays.copyOf(proposals.get(k), proposals.get(k).length + 1);
+                entry[entry.length - 1] = batchResults[k];
+                complete(first + k, entry);
+            }
+            System.out.printf("%s%s:%d/%d%s\n", Utilities.YELLOW, name, configs.size(), TPE_EVALUATIONS, Utilities.RESET);
+        }
+    }
+
+    /**
+     * @param space
+     * @param count
+     * @param rng
+     * @return count configurations drawn uniformly from the feasible part of the space
+     */
+    private List<double[]> sampleUniform(Space space, int count, RandomGenerator rng) throws Exception {
+        List<double[]> samples = new ArrayList<>(count);
+        while (samples.size() < count) {
+            double[] config = new double[space.dimension()];
+            for (int tries = 0; ; tries++) {
+                if (tries == 10000)
+                    throw new Exception("No feasible configuration found");
+                for (int d = 0; d < config.length; d++)
+                    config[d] = space.lower[d] + rng.nextDouble() * space.width(d);
+                if (space.feasible.test(config))
+                    break;
+            }
+            samples.add(config);
+        }
+        return samples;
+    }
+
+    /**
+     * Fits the good and bad densities to the evaluated configurations, and proposes the count most promising of
+     * TPE_CANDIDATES draws from the good density
+     * @param space
+     * @param configs the evaluated configurations
+     * @param results the average result of each evaluated configuration
+     * @param count
+     * @param rng
+     * @return
+     */
+    private List<double[]> proposeTPE(Space space, List<double[]> configs, List<Double> results, int count, RandomGenerator rng) throws Exception {
+        // split at the TPE_GAMMA quantile, ties go to the earlier configuration
+        Integer[] order = new Integer[configs.size()];
+        for (int k = 0; k < order.length; k++)
+            order[k] = k;
+        Arrays.sort(order, Comparator.comparingDouble(results::get));
+        int split = Math.max(1, (int) Math.ceil(TPE_GAMMA * order.length));
+        List<double[]> good = new ArrayList<>(split);
+        List<double[]> bad = new ArrayList<>(order.length - split);
+        for (int k = 0; k < order.length; k++)
+            (k < split ? good : bad).add(configs.get(order[k]));
+        Parzen l = new Parzen(space, good);
+        Parzen g = new Parzen(space, bad);
+
+        // draw the candidates, and keep those with the largest ratio l(x) / g(x)
+        double[][] candidates = new double[TPE_CANDIDATES][];
+        double[] ratio = new double[TPE_CANDIDATES];
+        Integer[] ranked = new Integer[TPE_CANDIDATES];
+        for (int k = 0; k < TPE_CANDIDATES; k++) {
+            candidates[k] = l.sample(rng);
+            ratio[k] = l.density(candidates[k]) / g.density(candidates[k]);
+            ranked[k] = k;
+        }
+        Arrays.sort(ranked, Comparator.comparingDouble(k -> -ratio[k]));
+        List<double[]> proposals = new ArrayList<>(count);
+        for (int k = 0; k < count; k++)
+            proposals.add(candidates[ranked[k]]);
+        return proposals;
+    }
+
+    /**
+     * A Parzen density over the space, an equally weighted mixture of a uniform prior and one truncated normal
+     * kernel around each observation. The kernel width in each dimension shrinks with the number of observations
+     * following Scott's rule.
+     */
+    private static class Parzen {
+        private final Space space;
+        private final List<double[]> centres;
+        private final double[] sigma;
+
+        Parzen(Space space, List<double[]> centres) {
+            this.space = space;
+            this.centres = centres;
+            this.sigma = new double[space.dimension()];
+            double shrink = Math.pow(centres.size() + 1, -1.0 / (space.dimension() + 4));
+            for (int d = 0; d < sigma.length; d++)
+                sigma[d] = Math.max(shrink, 0.01) * space.width(d);
+        }
+
+        /**
+         * @param rng
+         * @return a feasible draw from this density
+         */
+        double[] sample(RandomGenerator rng) throws Exception {
+            double[] x = new double[space.dimension()];
+            for (int tries = 0; tries < 10000; tries++) {
+                // the prior is one more component of the mixture
+                int component = rng.nextInt(centres.size() + 1);
+                for (int d = 0; d < x.length; d++) {
+                    if (component == centres.size()) {
+                        x[d] = space.lower[d] + rng.nextDouble() * space.width(d);
+                        continue;
                     }
-                    count++;
-                    System.out.printf("%s%s:%d/%d%s\n", Utilities.YELLOW, SingleObjectiveFunctions.getName(benchFlag), count, 30*30, Utilities.RESET);
+                    // a normal truncated to the bounds, by rejection
+                    do {
+                        x[d] = centres.get(component)[d] + sigma[d] * rng.nextGaussian();
+                    } while (x[d] < space.lower[d] || x[d] > space.upper[d]);
+                }
+                if (space.feasible.test(x))
+                    return x;
             }
-            System.out.printf("%s%s%s Writing to File\n", Utilities.YELLOW, SingleObjectiveFunctions.getName(benchFlag), Utilities.RESET);  
-            toFile();
-        }   
-        System.out.printf("\n\n%sDONE:%s\tThe Best Setting for %s%s%s is %s%s\n", Utilities.GREEN, Utilities.RESET, 
-        Utilities.GREEN, SingleObjectiveFunctions.getName(this.benchFlag), Utilities.RESET, Utilities.YELLOW, this.bestParamConfig.toString().replaceAll("\n", ""),Utilities.RESET);
+            throw new Exception("No feasible configuration found");
+        }
 
-        // write this result to a file?
-        toFile();
-    
+        /**
+         * @param x
+         * @return the density of this mixture at x, ignoring the feasibility constraint which scales every
+         * density of the same space alike
+         */
+        double density(double[] x) {
+            double total = 1;
+            for (int d = 0; d < x.length; d++)
+                total /= space.width(d);
+            for (double[] centre : centres) {
+                double p = 1;
+                for (int d = 0; d < x.length; d++) {
+                    double mass = cdf((space.upper[d] - centre[d]) / sigma[d]) - cdf((space.lower[d] - centre[d]) / sigma[d]);
+                    double z = (x[d] - centre[d]) / sigma[d];
+                    p *= Math.exp(-0.5 * z * z) / (Math.sqrt(2 * Math.PI) * sigma[d] * mass);
+                }
+                total += p;
+            }
+            return total / (centres.size() + 1);
+        }
 
+        /**
+         * The standard normal cumulative distribution, through the erf approximation 7.1.26 of Abramowitz and
+         * Stegun, accurate to about 1e-7 which is plenty for a density ratio
+         */
+        private static double cdf(double z) {
+            double x = Math.abs(z) / Math.sqrt(2);
+            double t = 1 / (1 + 0.3275911 * x);
+            double poly = t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))));
+            double erf = 1 - poly * Math.exp(-x * x);
+            return 0.5 * (1 + Math.signum(z) * erf);
+        }
+    }
+
+    /**
+     * @param cell
+     * @param run
+     * @return the stream which run of this cell draws from
+     */
+    private RandomGenerator stream(int cell, int run) {
+        return Rng.create(Rng.derive(algoFlag, benchFlag, cell, run));
+    }
+
+    /**
+     * Checks if the setting of this cell is worth saving, and if so saves it and writes it to file
+     * @param cell
+     * @param config
+     * @param avgResult
+     * @param name
+     */
+    private synchronized void offer(int cell, double[] config, double avgResult, String name) {
+        if (avgResult < this.bestResult || (avgResult == this.bestResult && cell < this.bestCell)) {
+            Vector best = new Vector(config);
+            System.out.printf("%s%s%s Found %s%s%s which yields %s%7f%s < %s%7f%s\n", 
+                Utilities.BLUE, name, Utilities.RESET,
+                Utilities.YELLOW, best.toString().replaceAll("\n", ""), Utilities.RESET, Utilities.GREEN,
+                avgResult, Utilities.RESET, Utilities.RED, this.bestResult, Utilities.RESET
+            );
+            this.bestResult = avgResult;
+            this.bestParamConfig = best;
+            this.bestCell = cell;
+            toFile();
+        }
     }
 
 
@@ -188,16 +742,31 @@ class OptimizationSuite {
     // }
 
 
-    private void toFile() {
-        String algo;
+    /**
+     * @return the label of the algorithm being tuned, which names its parameter directory and files
+     */
+    private String algoLabel() {
         if (algoFlag == 1)
-            algo = "pso";
+            return "pso";
         else if (algoFlag == 2)
-            algo = "de";
+            return "de";
         else 
-            algo = "bbmod";
+            return "bbmod";
+    }
+
+    /**
+     * @param extension
+     * @return the path of this function's parameter file with the supplied extension, such as tuned
+     * @throws Exception if the function flag is not recognized
+     */
+    private String paramFile(String extension) throws Exception {
+        String algo = algoLabel();
+        return String.format("../params/%s/%s_%s.%s", algo, SingleObjectiveFunctions.getName(this.benchFlag), algo, extension);
+    }
+
+    private void toFile() {
         try {
-            FileWriter f = new FileWriter(new File(String.format("../params/%s/%s_%s.tuned", algo, SingleObjectiveFunctions.getName(this.benchFlag), algo)));
+            FileWriter f = new FileWriter(new File(paramFile("tuned")));
             String output =  "";
             for (int i = 0; i < this.bestParamConfig.size(); i++) {
                 output += this.bestParamConfig.atIndex(i);
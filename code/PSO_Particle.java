@@ -1,75 +1,84 @@
 class PSO_Particle {
 
 
-    public Vector position;
-    public Vector pBestVec;
+    // the swarm whose matrices hold this particle's position, velocity and personal best vector, at row index
+    private PSO_Swarm swarm;
+    public int index;
     public double pBest;
-    public Vector gBestVec;
-    public double gBest;
-    public Vector velocity;
     public double w;
     public double c1;
     public double c2;
-    private byte FLAG;
+    private ObjectiveFunction function;
     public int DIM;
 
     /**
      * Construct a PSO_Particle
      * @param controlParams list of model control parameters of form {w, c1, c2}
-     * @param flag flag which denotes the objective function this particle attempts to minimnize
-     * @param dim The dimension of this particles search space
+     * @param function the objective function this particle attempts to minimnize
+     * @param swarm The swarm storing this particle's state, its position row must already be initialized
+     * @param index The row of the swarm matrices which belongs to this particle
      */
-    public PSO_Particle(double[] controlParams, byte flag, int dim) throws Exception {
+    public PSO_Particle(double[] controlParams, ObjectiveFunction function, PSO_Swarm swarm, int index) throws Exception {
         //set useful global fields
-        this.DIM = dim;
-        this.FLAG = flag;
+        this.DIM = swarm.positions.cols();
+        this.function = function;
+        this.swarm = swarm;
+        this.index = index;
 
         // control params of the form [w, c1, c2]
         this.w = controlParams[0];
         this.c1 = controlParams[1];
         this.c2 = controlParams[2];
 
-        Vector domain = SingleObjectiveFunctions.getDomain(flag);
-
-        this.position = Vector.randBetween(domain.atIndex(0), domain.atIndex(1), dim);
-        this.pBestVec = this.position.duplicate();
+        swarm.positions.copyRow(index, swarm.pBests, index);
         this.pBest = evaluatePos();
-        this.velocity = new Vector(dim);
+        swarm.velocities.fillRow(index, 0.0);
     }
 
     /**
      * Runs the standard PSO velocity update equation
+     *      v = w * v + c1 * r1 * (pBest - x) + c2 * r2 * (gBest - x)
      * 
-     * Assigns the updated velocity to this particle's velocity
+     * The update is fused into a single pass over this particle's rows of the swarm matrices, and the
+     * velocity is overwritten in place, so no temporary vectors are allocated. The random coefficients r1 and r2
+     * are read from the block the swarm drew for this iteration.
      * @throws Exception
      */
     public void updateVel() throws Exception {
-        Vector inWeight = velocity.scale(w);
-        Vector cog = Vector.ZeroOne(DIM).scale(c1).prod(pBestVec.sub(position));
-        Vector soc = Vector.ZeroOne(DIM).scale(c2).prod(gBestVec.sub(position));
-        this.velocity = cog.add(inWeight).add(soc);
+        double[] pos = swarm.positions.data();
+        double[] vel = swarm.velocities.data();
+        double[] pBestVec = swarm.pBests.data();
+        double[] gBestVec = swarm.gBestVec.data();
+        double[] r = swarm.coefficients;
+        int off = swarm.positions.offset(index);
+        int roff = 2 * off;
+        for (int i = 0; i < DIM; i++) {
+            double x = pos[off + i];
+            double cog = c1 * r[roff + i] * (pBestVec[off + i] - x);
+            double soc = c2 * r[roff + DIM + i] * (gBestVec[i] - x);
+            vel[off + i] = cog + w * vel[off + i] + soc;
+        }
     }
 
     /**
      * Updates the position, assumes that the velocity was previously updated
-     * 
-     * This will update pbestVal and pbestVec if needed
      */
     public void updatePos() throws Exception {
-        this.position = this.velocity.add(this.position);
-
-        if (evaluatePos() < this.pBest && SingleObjectiveFunctions.inDomain(this.position, FLAG)) {
-            this.pBest = evaluatePos();
-            this.pBestVec = this.position.duplicate();
-        }
+        swarm.positions.addRow(index, swarm.velocities, index);
     }
 
     /**
-     * update the GBest value of this particle to reflect the provided vector
+     * Updates pbestVal and pbestVec if needed, assumes that the position was previously updated
+     * @param posEval the evaluation of this particle's current position
+     * @return true if the pBest improved
      */
-    public void updateGBest(Vector newBest) throws Exception {
-        this.gBestVec = newBest.duplicate();
-        this.gBest = evaluateVec(newBest);
+    public boolean updatePBest(double posEval) throws Exception {
+        if (posEval < this.pBest && function.inDomain(swarm.positions.data(), swarm.positions.offset(index), DIM)) {
+            this.pBest = posEval;
+            swarm.positions.copyRow(index, swarm.pBests, index);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -77,17 +86,7 @@ class PSO_Particle {
      * @return
      */
     public double evaluatePos() throws Exception {
-        return SingleObjectiveFunctions.evaluate(this.position, this.FLAG);
-    }
-
-    /**
-     * Evaluate the quality of the provided vector with respect to the objective function being minimized
-     * @param vec
-     * @return
-     * @throws Exception
-     */
-    public double evaluateVec(Vector vec) throws Exception {
-        return SingleObjectiveFunctions.evaluate(vec, this.FLAG);
+        return SingleObjectiveFunctions.evaluate(swarm.positions, index, this.function);
     }
 
 }
\ No newline at end of file
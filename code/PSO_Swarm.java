@@ -1,69 +1,123 @@
+import java.util.random.RandomGenerator;
+
 
 public class PSO_Swarm {
 
-    private byte FLAG;
+    private ObjectiveFunction function;
 
     public PSO_Particle[] particles;
+
+    // contiguous storage of the swarm state, row i of each matrix belongs to particles[i]
+    public PopulationMatrix positions;
+    public PopulationMatrix velocities;
+    public PopulationMatrix pBests;
+
+    // batch evaluations of the particle positions for the current iteration
+    private double[] evals;
+
+    // the swarm's global best, a single snapshot which every particle reads during its velocity update. It is only
+    // overwritten between iterations, and gBestEval is the cached pBest fitness of the particle it was copied from
     public Vector gBestVec;
     public double gBestEval;
+    private int gBestIndex;
+
+    // buffered deviates from the stream of this swarm
+    private RandomBlock random;
+
+    // the random coefficients of the current iteration, particle i reads r1 from [2 * i * dim, (2 * i + 1) * dim)
+    // and r2 from the next dim entries
+    public double[] coefficients;
 
     public PSO_Swarm(double[] params, int size, int dim, byte flag) throws Exception {
+        this(params, size, dim, ObjectiveRegistry.get(flag));
+    }
+
+    public PSO_Swarm(double[] params, int size, int dim, ObjectiveFunction function) throws Exception {
+        this(params, size, dim, function, Rng.current());
+    }
+
+    /**
+     * Construct a swarm minimizing the supplied function, drawing all randomness from rng
+     * @param params The control parameters of the form {w, c1, c2}
+     * @param size The number of particles
+     * @param dim The dimension of the search space
+     * @param function The objective function to minimize
+     * @param rng The stream this swarm draws from, typically Rng.forTrial for the current trial
+     * @throws Exception
+     */
+    public PSO_Swarm(double[] params, int size, int dim, ObjectiveFunction function, RandomGenerator rng) throws Exception {
         // set control parameters
-        this.FLAG = flag;
+        this.function = function;
+        this.random = new RandomBlock(rng, 2 * size * dim);
 
         // initialize swarm structure
+        positions = PopulationMatrix.randBetween(function.lower(), function.upper(), size, dim, rng);
+        velocities = new PopulationMatrix(size, dim);
+        pBests = new PopulationMatrix(size, dim);
+        evals = new double[size];
         particles = new PSO_Particle[size];
         for (int i = 0; i < size; i++) {
-            particles[i] = new PSO_Particle(params, flag, dim);
+            particles[i] = new PSO_Particle(params, function, this, i);
         }
 
         // updateGbest
+        this.gBestVec = new Vector(dim);
         setGBest(findGBest());
     }
 
     /**
      * Run the update Procedure for each particle in the swarm
-     * After the procedure has updated both velocity and position, compute and update the new gBest
+     * After the procedure has updated both velocity and position, the new positions are evaluated in one batch,
+     * then the personal bests are updated. The best index is tracked as particles improve, so the gBest snapshot is
+     * copied at most once per iteration, and nothing is evaluated twice.
      */
     public void doUpdate() throws Exception {
-        // for each particle, do velocity and position update
+        // draw the random coefficients of every particle in one block, then do velocity and position update
+        coefficients = random.nextUniformBlock();
         for (int i = 0; i < particles.length; i++) {
             particles[i].updateVel();
             particles[i].updatePos();
         }
-        // find the new gBest, and make each particle reflect this value
-        setGBest(findGBest());
+        SingleObjectiveFunctions.evaluateBatch(positions, evals, function, RunConfig.PARALLEL_BATCH);
+        int bestdex = gBestIndex;
+        double bestEval = gBestEval;
+        for (int i = 0; i < particles.length; i++) {
+            if (particles[i].updatePBest(evals[i]) && particles[i].pBest < bestEval) {
+                bestdex = i;
+                bestEval = particles[i].pBest;
+            }
+        }
+        // if some particle beat the gBest, make the snapshot reflect its new pBest
+        if (bestEval < gBestEval)
+            setGBest(bestdex);
     }
 
     /**
-     * This function iterates the pbest's of the particles in the swarm, and returns the "best PBest" of the swarm
+     * This function iterates the pbest's of the particles in the swarm, and returns the index of the "best PBest" of the swarm
      * 
      * @return
      */
-    public Vector findGBest() {
+    public int findGBest() {
         int bestdex = 0;
         double bestEval = particles[bestdex].pBest;
         for (int i = 1; i < particles.length; i++) {
-            if (particles[i].pBest < bestEval)
+            if (particles[i].pBest < bestEval) {
                 bestdex = i;
+                bestEval = particles[i].pBest;
+            }
         }
-        return particles[bestdex].pBestVec;
+        return bestdex;
     }
 
     /**
-     * This function assigns the supplied vector as the Gbest for each particle in the swarm. It also assigns
-     * gBest evaluation to each particle, this is the evaluation of the supplied vector.
-     * @param best
-     * @throws Exception
+     * This function copies the pBest of the particle at the supplied index into the gBest snapshot, which every
+     * particle references. The gBest evaluation is that particle's cached pBest fitness.
+     * @param index
      */
-    public void setGBest(Vector best) throws Exception {
-        double bestEval = SingleObjectiveFunctions.evaluate(best, FLAG);
-        for (int i = 0 ; i < particles.length; i++) {
-            particles[i].gBestVec = best.duplicate();
-            particles[i].gBest = bestEval;
-        }
-        this.gBestVec = best.duplicate();
-        this.gBestEval = bestEval;
+    public void setGBest(int index) {
+        this.gBestVec.copyFrom(pBests.data(), pBests.offset(index));
+        this.gBestEval = particles[index].pBest;
+        this.gBestIndex = index;
     }
 
 }
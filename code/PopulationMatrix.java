@@ -0,0 +1,187 @@
+import java.util.random.RandomGenerator;
+
+public class PopulationMatrix {
+
+    private final double[] data;
+    private final int rows;
+    private final int cols;
+
+    /**
+     * construct a new population matrix of rows x cols, initialized to contain only 0.0 entries.
+     * The entries are stored contiguously in a single row-major array, row i occupies the
+     * index range [i * cols, (i + 1) * cols)
+     * @param rows the number of individuals in the population
+     * @param cols the dimension of each individual
+     */
+    public PopulationMatrix(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.data = new double[rows * cols];
+    }
+
+    /**
+     * returns a random population matrix where each element is randomly initialized on the interval [low, high]
+     * @param low The lower bound of the interval
+     * @param high The upper bound of the interval
+     * @param rows The number of individuals
+     * @param cols The dimension of each individual
+     * @return
+     * @throws Exception
+     */
+    public static PopulationMatrix randBetween(double low, double high, int rows, int cols) throws Exception {
+        return randBetween(low, high, rows, cols, Rng.current());
+    }
+
+    /**
+     * returns a random population matrix where each element is randomly initialized on the interval [low, high],
+     * drawn from rng
+     * @param low The lower bound of the interval
+     * @param high The upper bound of the interval
+     * @param rows The number of individuals
+     * @param cols The dimension of each individual
+     * @param rng The stream to draw from
+     * @return
+     * @throws Exception
+     */
+    public static PopulationMatrix randBetween(double low, double high, int rows, int cols, RandomGenerator rng) throws Exception {
+        if (high < low)
+            throw new Exception("High Bound Precedes Low Bound");
+        PopulationMatrix m = new PopulationMatrix(rows, cols);
+        for (int i = 0; i < m.data.length; i++) {
+            m.data[i] = (high - low) * rng.nextDouble() + low;
+        }
+        return m;
+    }
+
+    public int rows() {
+        return this.rows;
+    }
+
+    public int cols() {
+        return this.cols;
+    }
+
+    /**
+     * returns the backing array of this matrix. This is not a copy, writes are visible in the matrix
+     * @return
+     */
+    public double[] data() {
+        return this.data;
+    }
+
+    /**
+     * returns the index in the backing array at which the specified row begins
+     * @param row
+     * @return
+     */
+    public int offset(int row) {
+        return row * this.cols;
+    }
+
+    /**
+     * Copies the specified row out into a new vector, for use with the Vector API
+     * @param row
+     * @return
+     */
+    public Vector rowVector(int row) {
+        Vector vec = new Vector(this.cols);
+        vec.copyFrom(this.data, row * this.cols);
+        return vec;
+    }
+
+    /**
+     * Copies row srcRow of this matrix into row destRow of the dest matrix, dest may be this matrix
+     * @param srcRow
+     * @param dest
+     * @param destRow
+     * @throws Exception if the row lengths do not match
+     */
+    public void copyRow(int srcRow, PopulationMatrix dest, int destRow) throws Exception {
+        if (dest.cols != this.cols)
+            throw new Exception("Row Length Mismatch");
+        System.arraycopy(this.data, srcRow * this.cols, dest.data, destRow * dest.cols, this.cols);
+    }
+
+    /**
+     * Sets every entry of the specified row to val
+     * @param row
+     * @param val
+     */
+    public void fillRow(int row, double val) {
+        int off = row * this.cols;
+        for (int i = off; i < off + this.cols; i++) {
+            this.data[i] = val;
+        }
+    }
+
+    /**
+     * Adds row otherRow of the other matrix into the specified row of this matrix, in place.
+     * Intuition is A_row += B_otherRow
+     * @param row
+     * @param other
+     * @param otherRow
+     * @throws Exception if the row lengths do not match
+     */
+    public void addRow(int row, PopulationMatrix other, int otherRow) throws Exception {
+        axpyRow(row, 1.0, other, otherRow);
+    }
+
+    /**
+     * Adds a scaled row of the other matrix into the specified row of this matrix, in place.
+     * Intuition is A_row += a * B_otherRow
+     * @param row
+     * @param a
+     * @param other
+     * @param otherRow
+     * @throws Exception if the row lengths do not match
+     */
+    public void axpyRow(int row, double a, PopulationMatrix other, int otherRow) throws Exception {
+        if (other.cols != this.cols)
+            throw new Exception("Row Length Mismatch");
+        int off = row * this.cols;
+        int otherOff = otherRow * other.cols;
+        for (int i = 0; i < this.cols; i++) {
+            this.data[off + i] += a * other.data[otherOff + i];
+        }
+    }
+
+    /**
+     * Measures how spread out the population is, as the standard deviation of each column across the rows,
+     * averaged over the columns
+     * @return
+     */
+    public double spread() {
+        double[] mean = new double[this.cols];
+        double[] squares = new double[this.cols];
+        for (int row = 0; row < this.rows; row++) {
+            int off = row * this.cols;
+            for (int i = 0; i < this.cols; i++) {
+                mean[i] += this.data[off + i];
+            }
+        }
+        for (int i = 0; i < this.cols; i++) {
+            mean[i] /= this.rows;
+        }
+        for (int row = 0; row < this.rows; row++) {
+            int off = row * this.cols;
+            for (int i = 0; i < this.cols; i++) {
+                double d = this.data[off + i] - mean[i];
+                squares[i] += d * d;
+            }
+        }
+        double sum = 0.0;
+        for (int i = 0; i < this.cols; i++) {
+            sum += Math.sqrt(squares[i] / this.rows);
+        }
+        return sum / this.cols;
+    }
+
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        for (int row = 0; row < this.rows; row++) {
+            b.append(rowVector(row).toString());
+        }
+        return b.toString();
+    }
+
+}
@@ -0,0 +1,177 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * A KLL quantile sketch (Karnin, Lang and Liberty 2016) of a stream of doubles, which answers rank queries
+ * approximately in memory that does not grow with the length of the stream.
+ *
+ * Items are kept in levels, an item at level h stands for 2^h items of the stream. When a level fills up it is
+ * sorted and compacted: every other item (starting at a random one of the first two) is promoted to the level
+ * above, and the rest are dropped. Level capacities shrink geometrically by C going down from the top level, and
+ * the top level holds k items, so the sketch keeps about k / (1 - C) items. The rank error is then about 1.7 / k
+ * with high probability, and until more than k items have been added nothing is compacted and the answers are exact.
+ *
+ * The coin flips come from the generator supplied, so the same stream and generator give the same sketch.
+ * Sketches of separate streams are combined with merge. Not thread safe.
+ */
+public class QuantileSketch {
+
+    // the ratio of the capacities of consecutive levels
+    private static final double C = 2.0 / 3.0;
+
+    private final int k;
+    private final RandomGenerator rng;
+
+    // level h holds sizes[h] items, at the start of levels[h]
+    private double[][] levels = new double[0][];
+    private int[] sizes = new int[0];
+
+    // the number of items added to the stream
+    private long n;
+
+    /**
+     * @param k the capacity of the top level, which sets the accuracy
+     * @param rng the source of the coin flips of compaction
+     */
+    public QuantileSketch(int k, RandomGenerator rng) {
+        this.k = k;
+        this.rng = rng;
+        addLevel();
+    }
+
+    /**
+     * Adds an item to the stream
+     * @param x
+     */
+    public void add(double x) {
+        append(0, x);
+        n++;
+        compress();
+    }
+
+    /**
+     * Adds every item of the other sketch's stream to this one
+     * @param other
+     */
+    public void merge(QuantileSketch other) {
+        while (levels.length < other.levels.length)
+            addLevel();
+        for (int h = 0; h < other.levels.length; h++) {
+            for (int i = 0; i < other.sizes[h]; i++)
+                append(h, other.levels[h][i]);
+        }
+        n += other.n;
+        compress();
+    }
+
+    /**
+     * @return the number of items added to the stream
+     */
+    public long count() {
+        return n;
+    }
+
+    /**
+     * @param q the quantile, between 0 and 1
+     * @return the smallest item whose rank is at least q of the stream (the lower of two middle items for the
+     * median of an even count), NaN if the stream is empty
+     */
+    public double quantile(double q) {
+        int total = 0;
+        for (int size : sizes)
+            total += size;
+        if (total == 0)
+            return Double.NaN;
+
+        // every kept item, and the number of items of the stream it stands for
+        double[] items = new double[total];
+        long[] weights = new long[total];
+        int j = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++, j++) {
+                items[j] = levels[h][i];
+                weights[j] = 1L << h;
+            }
+        }
+        Integer[] order = new Integer[total];
+        for (int i = 0; i < total; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(items[a], items[b]));
+
+        double target = q * n;
+        long rank = 0;
+        for (int i = 0; i < total; i++) {
+            rank += weights[order[i]];
+            if (rank >= target)
+                return items[order[i]];
+        }
+        return items[order[total - 1]];
+    }
+
+    /**
+     * @param h
+     * @return the capacity of level h, which shrinks by C for every level below the top
+     */
+    private int capacity(int h) {
+        int depth = levels.length - 1 - h;
+        return Math.max(2, (int) Math.ceil(k * Math.pow(C, depth)));
+    }
+
+    /**
+     * Compacts the lowest full level, until the sketch is within its total capacity
+     */
+    private void compress() {
+        while (true) {
+            int size = 0;
+            int capacity = 0;
+            for (int h = 0; h < levels.length; h++) {
+                size += sizes[h];
+                capacity += capacity(h);
+            }
+            if (size <= capacity)
+                return;
+            for (int h = 0; h < levels.length; h++) {
+                if (sizes[h] >= capacity(h)) {
+                    compact(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Promotes every other item of level h to the level above. If the level holds an odd number of items, its
+     * largest stays behind
+     */
+    private void compact(int h) {
+        if (h == levels.length - 1)
+            addLevel();
+        double[] level = levels[h];
+        int size = sizes[h];
+        Arrays.sort(level, 0, size);
+        int pairs = size / 2;
+        int offset = rng.nextBoolean() ? 1 : 0;
+        for (int i = 0; i < pairs; i++)
+            append(h + 1, level[2 * i + offset]);
+        if (size % 2 == 1) {
+            level[0] = level[size - 1];
+            sizes[h] = 1;
+        }
+        else {
+            sizes[h] = 0;
+        }
+    }
+
+    private void append(int h, double x) {
+        if (sizes[h] == levels[h].length)
+            levels[h] = Arrays.copyOf(levels[h], Math.max(8, 2 * levels[h].length));
+        levels[h][sizes[h]++] = x;
+    }
+
+    private void addLevel() {
+        levels = Arrays.copyOf(levels, levels.length + 1);
+        levels[levels.length - 1] = new double[8];
+        sizes = Arrays.copyOf(sizes, sizes.length + 1);
+    }
+
+}
@@ -0,0 +1,171 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Buffered access to a random stream, generating uniform and normal deviates in whole blocks rather than one call
+ * at a time.
+ *
+ * The engines either fill their own preallocated arrays for a whole generation through fillUniform and fillNormal,
+ * or take single deviates through nextUniform and nextNormal, which are served from internal blocks that are
+ * refilled once exhausted. An engine which knows the most uniform deviates a generation can take reserves them
+ * with reserveUniform before it starts, so the block is never refilled part way through. Normal deviates come from
+ * the ziggurat sampler, so they do not depend on how the JDK implements nextGaussian.
+ */
+public class RandomBlock {
+
+    private final RandomGenerator rng;
+
+    private final double[] uniforms;
+    private int uniformCursor;
+
+    // the number of times nextUniform found the block exhausted and refilled it
+    private long uniformRefills;
+
+    private final double[] normals;
+    private int normalCursor;
+
+    // scratch for nextDistinct, the excluded value and the draws so far in ascending order
+    private int[] taken = new int[0];
+
+    /**
+     * @param rng The stream the blocks are drawn from
+     * @param blockSize How many deviates of each kind to generate at a time, typically the number consumed by a generation
+     */
+    public RandomBlock(RandomGenerator rng, int blockSize) {
+        this.rng = rng;
+        this.uniforms = new double[blockSize];
+        this.normals = new double[blockSize];
+        // both blocks start exhausted, so they are only generated once they are needed
+        this.uniformCursor = blockSize;
+        this.normalCursor = blockSize;
+    }
+
+    /**
+     * @return The underlying stream
+     */
+    public RandomGenerator generator() {
+        return this.rng;
+    }
+
+    /**
+     * Fills the len entries of out beginning at off with draws from Uniform(0, 1)
+     * @param out
+     * @param off
+     * @param len
+     */
+    public void fillUniform(double[] out, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            out[i] = rng.nextDouble();
+        }
+    }
+
+    /**
+     * Fills the len entries of out beginning at off with draws from Normal(0, 1)
+     * @param out
+     * @param off
+     * @param len
+     */
+    public void fillNormal(double[] out, int off, int len) {
+        Ziggurat.fill(rng, out, off, len);
+    }
+
+    /**
+     * @return The next draw from Uniform(0, 1) in the current block
+     */
+    public double nextUniform() {
+        if (uniformCursor == uniforms.length) {
+            fillUniform(uniforms, 0, uniforms.length);
+            uniformCursor = 0;
+            uniformRefills++;
+        }
+        return uniforms[uniformCursor++];
+    }
+
+    /**
+     * Makes sure the next n uniform draws are served without refilling the block. The deviates left in the block
+     * are kept and the block is topped up behind them, so the stream of draws is the same as without the reserve
+     * @param n at most the block size
+     */
+    public void reserveUniform(int n) {
+        int left = uniforms.length - uniformCursor;
+        if (left >= n)
+            return;
+        System.arraycopy(uniforms, uniformCursor, uniforms, 0, left);
+        fillUniform(uniforms, left, uniforms.length - left);
+        uniformCursor = 0;
+    }
+
+    /**
+     * @return The number of times a uniform draw found the block exhausted and had to refill it
+     */
+    public long uniformRefills() {
+        return uniformRefills;
+    }
+
+    /**
+     * @param bound
+     * @return The next draw from the integers on [0, bound), taken from the uniform block
+     */
+    public int nextInt(int bound) {
+        return (int) (nextUniform() * bound);
+    }
+
+    /**
+     * Generates a whole new block of uniform deviates, discarding whatever remains of the current one
+     * @return The internal block, which is overwritten by the next call, so it must not be held on to
+     */
+    public double[] nextUniformBlock() {
+        fillUniform(uniforms, 0, uniforms.length);
+        uniformCursor = uniforms.length;
+        return uniforms;
+    }
+
+    /**
+     * Generates a whole new block of normal deviates, discarding whatever remains of the current one
+     * @return The internal block, which is overwritten by the next call, so it must not be held on to
+     */
+    public double[] nextNormalBlock() {
+        fillNormal(normals, 0, normals.length);
+        normalCursor = normals.length;
+        return normals;
+    }
+
+    /**
+     * Fills out with distinct draws from the integers on [0, bound), none of which equal exclude.
+     * 
+     * Each draw picks a rank among the values which are still free, and is then moved past every taken value at or
+     * below it, so no draw is ever rejected and the cost only depends on out.length. Requires out.length < bound.
+     * @param bound
+     * @param exclude
+     * @param out
+     */
+    public void nextDistinct(int bound, int exclude, int[] out) {
+        if (taken.length < out.length + 1)
+            taken = new int[out.length + 1];
+        taken[0] = exclude;
+        int count = 1;
+        for (int i = 0; i < out.length; i++) {
+            int r = nextInt(bound - count);
+            int j = 0;
+            while (j < count && taken[j] <= r) {
+                r++;
+                j++;
+            }
+            System.arraycopy(taken, j, taken, j + 1, count - j);
+            taken[j] = r;
+            count++;
+            out[i] = r;
+        }
+    }
+
+    /**
+     * @return The next draw from Normal(0, 1) in the current block
+     */
+    public double nextNormal() {
+        if (normalCursor == normals.length) {
+            fillNormal(normals, 0, normals.length);
+            normalCursor = 0;
+        }
+        return normals[normalCursor++];
+    }
+
+}
@@ -0,0 +1,224 @@
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A binary alternative to the raw CSV results, which is read through a memory mapping rather than parsed.
+ *
+ * The file is a 32 byte header (the magic number, format version, number of trials, number of recorded columns
+ * and the recording granularity as little-endian ints, then padding) followed by the observations as little-endian
+ * doubles. The observations are stored column-major: the values of every trial at the first recorded iteration,
+ * then every trial at the second, and so on. A trial's row is scattered over the columns when it is written, which
+ * costs nothing in a mapping, and in exchange every statistic of a column reads one contiguous run of the file.
+ *
+ * The whole file is mapped, so it is limited to 2GB, some 250 million observations.
+ */
+public class ResultStore {
+
+    // "RSLT" in ASCII
+    private static final int MAGIC = 0x52534c54;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private final Path path;
+    private final int trials;
+    private final int cols;
+    private final int granularity;
+    private final MappedByteBuffer mapping;
+    private final DoubleBuffer values;
+
+    private ResultStore(Path path, MappedByteBuffer mapping) throws Exception {
+        this.path = path;
+        this.mapping = mapping;
+        mapping.order(ByteOrder.LITTLE_ENDIAN);
+        if (mapping.getInt(0) != MAGIC || mapping.getInt(4) != VERSION)
+            throw new Exception("Not a version " + VERSION + " result store: " + path);
+        this.trials = mapping.getInt(8);
+        this.cols = mapping.getInt(12);
+        this.granularity = mapping.getInt(16);
+        this.values = mapping.slice(HEADER_BYTES, mapping.capacity() - HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        if (values.capacity() != (long) trials * cols)
+            throw new Exception("Truncated result store: " + path);
+    }
+
+    /**
+     * Creates (or replaces) a store for the supplied shape, with every observation 0 until it is written
+     * @param path
+     * @param trials
+     * @param cols the number of recorded observations of each trial
+     * @return the store, mapped for writing
+     * @throws Exception if the file can not be created, or would exceed 2GB
+     */
+    public static ResultStore create(Path path, int trials, int cols) throws Exception {
+        long size = HEADER_BYTES + 8L * trials * cols;
+        if (size > Integer.MAX_VALUE)
+            throw new Exception("Result store of " + trials + " x " + cols + " is too large to map");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            mapping.order(ByteOrder.LITTLE_ENDIAN);
+            mapping.putInt(0, MAGIC);
+            mapping.putInt(4, VERSION);
+            mapping.putInt(8, trials);
+            mapping.putInt(12, cols);
+            mapping.putInt(16, RunConfig.GRANULARITY);
+            return new ResultStore(path, mapping);
+        }
+    }
+
+    /**
+     * Opens an existing store for reading
+     * @param path
+     * @return
+     * @throws Exception if the file can not be read, or is not a result store
+     */
+    public static ResultStore open(Path path) throws Exception {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ResultStore(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @return the number of trials
+     */
+    public int trials() {
+        return trials;
+    }
+
+    /**
+     * @return the number of recorded observations of each trial
+     */
+    public int cols() {
+        return cols;
+    }
+
+    /**
+     * @return the number of iterations between recorded observations
+     */
+    public int granularity() {
+        return granularity;
+    }
+
+    /**
+     * Writes the row of observations of a trial. Different trials may be written concurrently
+     * @param trial
+     * @param row
+     */
+    public void put(int trial, double[] row) {
+        for (int col = 0; col < cols; col++)
+            values.put(col * trials + trial, row[col]);
+    }
+
+    /**
+     * @param trial
+     * @param col
+     * @return the observation of the trial at the (col * granularity)'th iteration
+     */
+    public double get(int trial, int col) {
+        return values.get(col * trials + trial);
+    }
+
+    /**
+     * @param trial
+     * @return a copy of the row of observations of the trial
+     */
+    public double[] row(int trial) {
+        double[] row = new double[cols];
+        for (int col = 0; col < cols; col++)
+            row[col] = get(trial, col);
+        return row;
+    }
+
+    /**
+     * @param col
+     * @return a copy of the observations of every trial at the (col * granularity)'th iteration
+     */
+    public double[] column(int col) {
+        double[] column = new double[trials];
+        values.get(col * trials, column);
+        return column;
+    }
+
+    /**
+     * @return the mean over the trials of each column
+     */
+    public double[] mean() {
+        double[] mean = new double[cols];
+        for (int col = 0; col < cols; col++) {
+            double sum = 0.0;
+            for (int i = col * trials; i < (col + 1) * trials; i++)
+                sum += values.get(i);
+            mean[col] = sum / trials;
+        }
+        return mean;
+    }
+
+    /**
+     * @return the sample variance over the trials of each column, dividing by (trials - 1)
+     */
+    public double[] variance() {
+        double[] mean = mean();
+        double[] variance = new double[cols];
+        for (int col = 0; col < cols; col++) {
+            double sum = 0.0;
+            for (int i = col * trials; i < (col + 1) * trials; i++) {
+                double diff = values.get(i) - mean[col];
+                sum += diff * diff;
+            }
+            variance[col] = sum / (trials - 1);
+        }
+        return variance;
+    }
+
+    /**
+     * @param q the quantile, between 0 and 1
+     * @return the q quantile over the trials of each column, interpolating linearly between the closest ranks
+     * (the default of numpy and pandas)
+     */
+    public double[] quantile(double q) {
+        double[] quantile = new double[cols];
+        double[] column = new double[trials];
+        double h = (trials - 1) * q;
+        int lo = (int) Math.floor(h);
+        int hi = Math.min(lo + 1, trials - 1);
+        for (int col = 0; col < cols; col++) {
+            values.get(col * trials, column);
+            Arrays.sort(column);
+            quantile[col] = column[lo] + (h - lo) * (column[hi] - column[lo]);
+        }
+        return quantile;
+    }
+
+    /**
+     * Flushes the written observations to disk
+     */
+    public void force() {
+        mapping.force();
+    }
+
+    /**
+     * Writes the observations in the raw CSV layout, one row per trial
+     * @param csv
+     * @throws Exception
+     */
+    public void exportCsv(Path csv) throws Exception {
+        CsvAppender appender = new CsvAppender(csv, trials, cols, granularity);
+        for (int trial = 0; trial < trials; trial++)
+            appender.append(trial, row(trial));
+        appender.close();
+    }
+
+    /**
+     * Exports a store to the raw CSV layout
+     * @param args the store, then the CSV file to write
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        open(Path.of(args[0])).exportCsv(Path.of(args[1]));
+    }
+
+}
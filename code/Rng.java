@@ -0,0 +1,94 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Source of the random number streams used by the optimizers.
+ *
+ * Every stream is an independent L64X128MixRandom generator, whose seed is derived from the master seed in
+ * RunConfig.SEED and a few integer keys (such as an algorithm label and a trial number). The same keys always give
+ * the same stream, so a trial produces identical results no matter which thread runs it, or in what order.
+ *
+ * Generators are not thread safe, each stream should only ever be used by one thread at a time.
+ */
+public class Rng {
+
+    public static final String ALGORITHM = "L64X128MixRandom";
+
+    private static final RandomGeneratorFactory<RandomGenerator> FACTORY = RandomGeneratorFactory.of(ALGORITHM);
+
+    // hands out a distinct key to every thread which asks for a thread local stream
+    private static final AtomicLong THREAD_KEYS = new AtomicLong();
+
+    // key which separates the thread local streams from the trial streams
+    private static final long THREAD_SALT = 0x7468726561646cL;
+
+    private static final ThreadLocal<RandomGenerator> CURRENT =
+            ThreadLocal.withInitial(() -> create(derive(THREAD_SALT, THREAD_KEYS.getAndIncrement())));
+
+    /**
+     * This class is designed to be statically referenced, it should not be instantiable
+     */
+    private Rng() {
+
+    }
+
+    /**
+     * @param seed
+     * @return a new generator seeded with exactly this seed
+     */
+    public static RandomGenerator create(long seed) {
+        return FACTORY.create(seed);
+    }
+
+    /**
+     * Derives a seed from the master seed and the supplied keys. Different key sequences give statistically
+     * unrelated seeds, even if they differ in a single bit.
+     * @param keys
+     * @return
+     */
+    public static long derive(long... keys) {
+        long h = mix64(RunConfig.SEED);
+        for (long key : keys) {
+            h = mix64(h ^ mix64(key + 0x9e3779b97f4a7c15L));
+        }
+        return h;
+    }
+
+    /**
+     * @param trial
+     * @return the stream which belongs to this independent trial
+     */
+    public static RandomGenerator forTrial(int trial) {
+        return create(derive(trial));
+    }
+
+    /**
+     * @param label names the experiment, so that for example trial 3 of DE and trial 3 of PSO draw different streams
+     * @param flag the benchmark function, so that trial 3 on Ackley and trial 3 on Rastrigin are independent
+     * @param trial
+     * @return the stream which belongs to this independent trial of the labelled experiment on the function
+     */
+    public static RandomGenerator forTrial(String label, byte flag, int trial) {
+        return create(derive(flag, label.hashCode(), trial));
+    }
+
+    /**
+     * Returns the stream of the calling thread. This is contention free, but its sequence depends on which thread
+     * asks first, so reproducible code should be handed a stream from forTrial instead.
+     * @return
+     */
+    public static RandomGenerator current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Stafford's variant 13 of the MurmurHash3 finalizer, the same mixing function SplittableRandom uses
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -12,12 +12,32 @@ public class RunConfig {
     // Specify how often quality measurements are evaluated
     public static final int GRANULARITY = 5;
 
+    // Maximum number of function evaluations a trial, tuning simulation or single run may use. It stops as soon as
+    // the budget is spent, part way through an iteration if need be. 0 for no limit
+    public static final long MAX_FES = 0;
+
+    // A trial stops once its best is within this distance of the known optimum, 0 stops on reaching it exactly. Negative for no limit
+    public static final double TARGET_ERROR = -1.0;
+
+    // A trial stops once its best has not improved for this many iterations. 0 for no limit
+    public static final int STAGNATION_LIMIT = 0;
+
+    // A trial stops once its population spread falls below this fraction of the domain width. 0 for no limit
+    public static final double MIN_DIVERSITY = 0.0;
+
+    // A trial stops once it has run for this many milliseconds. 0 for no limit
+    public static final long MAX_MILLIS = 0;
+
     // reads the tuned model control parameters from files, if this is false, the params below are used.
     public static final boolean OPTIMIZED = true;
 
     // F and CR settings for Differential Evolution to use by default
     public static final double[] DE_PARAMS = {0.5, 0.5};
    
+    // Use binomial crossover (DE/rand/1/bin) in DE rather than exponential crossover (DE/rand/1/exp). On unless the JVM is
+    // started with -Dde.binomial=false, which reproduces the exponential crossover the shipped tuned DE params were found with
+    public static final boolean DE_BINOMIAL = !"false".equalsIgnoreCase(System.getProperty("de.binomial"));
+   
     // W C1 and C2 settings for Particle Swarm Optimization to use by default
     public static final double[] PSO_PARAMS = {0.7, 1.4, 1.4};
 
@@ -30,4 +50,44 @@ public class RunConfig {
     // Used to specify the percentage of domain width that the largest BANG can be.
     public static final double DOM_WIDTH_FACTOR = 0.3;
 
+    // Evaluate benchmarks with the SIMD kernels when they are available, falls back to scalar kernels otherwise
+    public static final boolean SIMD_KERNELS = true;
+
+    // Evaluate each generation's population in parallel chunks, worthwhile for large populations or expensive functions
+    public static final boolean PARALLEL_BATCH = false;
+
+    // The number of chunks a parallel batch evaluation is split into
+    public static final int BATCH_CHUNKS = 4 * Runtime.getRuntime().availableProcessors();
+
+    // The number of threads on which independent trials are run concurrently
+    public static final int TRIAL_THREADS = Runtime.getRuntime().availableProcessors();
+
+    // Score DE trials on separable functions by updating only the terms of the coordinates which changed
+    public static final boolean DELTA_EVALUATION = true;
+
+    // Every this many generations DE fully re-evaluates its trials and members, bounding the drift of delta evaluation
+    public static final int DELTA_REFRESH = 50;
+
+    // Also write the raw results of each simulation as a memory mapped binary store (see ResultStore)
+    public static final boolean BINARY_RESULTS = true;
+
+    // The quantiles of the best fitness over the trials written to the _quantiles results, one row per quantile
+    public static final double[] QUANTILES = {0.05, 0.25, 0.5, 0.75, 0.95};
+
+    // The statistics over the trials are accumulated in this many parts, merged once every trial has finished.
+    // Fixed rather than tied to the number of threads, so the statistics are the same on every machine
+    public static final int STATS_PARTS = 8;
+
+    // Accuracy of the quantile sketches, exact up to this many trials and within about 1.7/SKETCH_K in rank beyond
+    public static final int SKETCH_K = 200;
+
+    // Save completed trials and tuning cells to checkpoints, so an interrupted run resumes where it stopped
+    public static final boolean CHECKPOINTS = true;
+
+    // Trials and tuning cells are appended to their checkpoint as they finish, and forced to disk at most this often
+    public static final long CHECKPOINT_MILLIS = 10000;
+
+    // Master seed from which every random stream is derived, the same seed reproduces the same results
+    public static final long SEED = 20220510L;
+
 }
@@ -0,0 +1,126 @@
+import java.util.Arrays;
+
+/**
+ * Running statistics over rows of observations, column by column: the mean and variance through Welford's online
+ * algorithm, and the minimum and maximum. Since every recorded observation of a trial is its best so far, the
+ * minimum of a column is the best found by any trial up to that iteration.
+ *
+ * Rows are added one at a time and then dropped, so the memory used depends only on the number of columns. The
+ * statistics of separate accumulators, such as those of parallel workers, are combined with merge.
+ *
+ * Not thread safe, each accumulator should only be updated by one thread at a time.
+ */
+public class RunningStats {
+
+    private long count;
+    private final double[] mean;
+    // the sum of squared differences from the mean
+    private final double[] m2;
+    private final double[] min;
+    private final double[] max;
+
+    /**
+     * @param cols the number of entries in each row
+     */
+    public RunningStats(int cols) {
+        this.mean = new double[cols];
+        this.m2 = new double[cols];
+        this.min = new double[cols];
+        this.max = new double[cols];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Builds the statistics of a whole matrix, row by row
+     * @param data
+     * @return
+     */
+    public static RunningStats of(double[][] data) {
+        RunningStats stats = new RunningStats(data[0].length);
+        for (double[] row : data)
+            stats.add(row);
+        return stats;
+    }
+
+    /**
+     * Adds a row of observations
+     * @param row
+     */
+    public void add(double[] row) {
+        count++;
+        for (int col = 0; col < mean.length; col++) {
+            double x = row[col];
+            double delta = x - mean[col];
+            mean[col] += delta / count;
+            m2[col] += delta * (x - mean[col]);
+            min[col] = Math.min(min[col], x);
+            max[col] = Math.max(max[col], x);
+        }
+    }
+
+    /**
+     * Adds every row which was added to the other accumulator, through the parallel combination of Chan et al.
+     * @param other an accumulator with the same number of columns
+     */
+    public void merge(RunningStats other) {
+        if (other.count == 0)
+            return;
+        if (count == 0) {
+            count = other.count;
+            System.arraycopy(other.mean, 0, mean, 0, mean.length);
+            System.arraycopy(other.m2, 0, m2, 0, m2.length);
+            System.arraycopy(other.min, 0, min, 0, min.length);
+            System.arraycopy(other.max, 0, max, 0, max.length);
+            return;
+        }
+        long total = count + other.count;
+        for (int col = 0; col < mean.length; col++) {
+            double delta = other.mean[col] - mean[col];
+            mean[col] += delta * other.count / total;
+            m2[col] += other.m2[col] + delta * delta * ((double) count * other.count / total);
+            min[col] = Math.min(min[col], other.min[col]);
+            max[col] = Math.max(max[col], other.max[col]);
+        }
+        count = total;
+    }
+
+    /**
+     * @return the number of rows added
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return the mean of each column
+     */
+    public double[] mean() {
+        return mean.clone();
+    }
+
+    /**
+     * @return the sample variance of each column, dividing by (count - 1)
+     */
+    public double[] variance() {
+        double[] variance = new double[m2.length];
+        for (int col = 0; col < m2.length; col++)
+            variance[col] = m2[col] / (count - 1);
+        return variance;
+    }
+
+    /**
+     * @return the smallest observation in each column
+     */
+    public double[] min() {
+        return min.clone();
+    }
+
+    /**
+     * @return the largest observation in each column
+     */
+    public double[] max() {
+        return max.clone();
+    }
+
+}
@@ -0,0 +1,25 @@
+/**
+ * An objective function which is a sum of independent per-coordinate terms,
+ *      f(x) = offset(D) + sum over i of term(x_i, i)
+ *
+ * This lets an optimizer which knows the terms of a parent compute the fitness of a child which differs in only a
+ * few coordinates by updating just those terms, in O(changed coordinates) rather than O(D).
+ */
+public interface SeparableObjective extends ObjectiveFunction {
+
+    /**
+     * @param xi the value of coordinate i
+     * @param i the (zero based) index of the coordinate
+     * @return the contribution of this coordinate to the function value
+     */
+    double term(double xi, int i);
+
+    /**
+     * @param len the dimension of the search space
+     * @return the part of the function value which does not depend on any coordinate
+     */
+    default double offset(int len) {
+        return 0.0;
+    }
+
+}
@@ -0,0 +1,451 @@
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * A single simulation, one algorithm (and variant) minimizing one benchmark function over RunConfig.TRIALS
+ * independent trials.
+ *
+ * Each trial is run through runTrial, which may be called concurrently for different trials. Trial t records its
+ * observations into its own rows, and draws from its own Rng.forTrial stream, so the results do not depend on how
+ * the trials are scheduled. Finished rows are streamed to the result files and folded into running statistics,
+ * rather than kept, so the memory a job needs does not grow with the number of trials.
+ *
+ * Every trial evaluates the function through its own CountingObjective. Alongside each recorded observation the
+ * number of evaluations used so far is recorded, so results can be compared at equal cost as well as at equal
+ * iteration. A trial stops early once its termination criterion is met, or as soon as it has spent the
+ * RunConfig.MAX_FES evaluations its counter allows, even part way through an iteration. Its remaining observations
+ * are then forward filled with its final values so every row keeps the same shape.
+ *
+ * Completed trials are saved to a checkpoint as they finish. If the job is interrupted, a new job with the same
+ * configuration restores the saved trials instead of running them again, and the checkpoint is removed once the
+ * results are written.
+ *
+ * The raw and evaluation rows of each trial are streamed to their CSV files as soon as the trial finishes (see
+ * CsvAppender), and the raw rows also to a binary ResultStore if RunConfig.BINARY_RESULTS is set. The averages,
+ * variances, best and worst over the trials, and quantiles (of RunConfig.QUANTILES, from a QuantileSketch per
+ * observation) are written once every trial has finished.
+ *
+ * The statistics are accumulated in RunConfig.STATS_PARTS separate parts, trial t going to part t % STATS_PARTS,
+ * so concurrent trials rarely wait on each other to add their rows. Within a part rows are added in trial order,
+ * and the parts are merged in part order at the end, so the statistics do not depend on the scheduling either.
+ */
+public class SimulationJob {
+
+    /**
+     * The algorithms which can be simulated, the label prefixes the names of the result files
+     */
+    public enum Algorithm {
+        DE("de"),
+        PSO("pso"),
+        BB_ORIG("bb_orig"),
+        BB_MOD("bb_mod");
+
+        public final String label;
+
+        Algorithm(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @param label
+         * @return the algorithm with this label, ignoring case
+         * @throws Exception if no algorithm has this label
+         */
+        public static Algorithm parse(String label) throws Exception {
+            for (Algorithm algorithm : values()) {
+                if (algorithm.label.equalsIgnoreCase(label))
+                    return algorithm;
+            }
+            throw new Exception("Algorithm not recognized: " + label);
+        }
+    }
+
+    public final byte flag;
+    public final ObjectiveFunction function;
+    public final Algorithm algorithm;
+
+    // the control parameters of the algorithm, null for BB-BC which has none
+    private final double[] params;
+
+    // the number of recorded observations of each trial
+    public final int cols = RunConfig.ITERATIONS / RunConfig.GRANULARITY + 1;
+
+    // the mean and variance (and extremes) over the trials of each recorded observation, merged from the parts
+    // once every trial has finished, null if record mode is off
+    public final RunningStats stats;
+
+    // a sketch of the distribution over the trials of each recorded observation, merged like stats
+    private final QuantileSketch[] sketches;
+
+    // the statistics of the trials of each part, null if record mode is off
+    private final Part[] parts;
+
+    // the total number of function evaluations each trial used
+    public final long[] trialEvaluations;
+
+    // checked after every iteration of every trial, by default built from RunConfig
+    public TerminationCriterion termination = TerminationCriterion.fromConfig();
+
+    // the completed trials, null if checkpoints or record mode are off
+    private final Checkpoint checkpoint;
+
+    // stream the rows of data and evaluations to their CSV files as trials finish, null if record mode is off
+    private final CsvAppender rawCsv;
+    private final CsvAppender fesCsv;
+
+    // the raw results in binary, created when the first trial finishes, null until then or if it is not written
+    private ResultStore rawStore;
+
+    /**
+     * The observations recorded by a single trial, the best evaluation and the number of evaluations used at every
+     * RunConfig.GRANULARITY'th iteration
+     */
+    private class Record {
+        final double[] data = new double[cols];
+        final double[] evaluations = new double[cols];
+    }
+
+    /**
+     * The statistics and sketches of every RunConfig.STATS_PARTS'th trial
+     */
+    private class Part {
+        final RunningStats stats = new RunningStats(cols);
+        final QuantileSketch[] sketches = new QuantileSketch[cols];
+
+        // rows of trials which finished before some earlier trial of the part, waiting to be added in trial order
+        final Map<Integer, double[]> early = new HashMap<>();
+        int nextTrial;
+
+        Part(int part) {
+            // the sketches of a part are fed in trial order, so they can share one generator and still come out
+            // the same every run
+            RandomGenerator rng = Rng.create(Rng.derive("sketch".hashCode(), algorithm.label.hashCode(), flag, part));
+            for (int col = 0; col < cols; col++)
+                sketches[col] = new QuantileSketch(RunConfig.SKETCH_K, rng);
+            nextTrial = part;
+        }
+    }
+
+    /**
+     * A trial in progress, one algorithm iteration at a time
+     */
+    private interface Run {
+        void step(int iter) throws Exception;
+        double best();
+        PopulationMatrix population();
+    }
+
+    /**
+     * @param flag The flag denoting which objective function to minimize
+     * @param algorithm The algorithm to simulate
+     * @throws Exception if the flag is not recognized, or the tuned control parameters can not be read
+     */
+    public SimulationJob(byte flag, Algorithm algorithm) throws Exception {
+        this.flag = flag;
+        this.function = ObjectiveRegistry.get(flag);
+        this.algorithm = algorithm;
+
+        // check RunConfig field, if true we should use tuned values, else use default.
+        switch (algorithm) {
+            case DE:
+                this.params = (RunConfig.OPTIMIZED) ? Driver.readControlParams((byte) 2, flag): RunConfig.DE_PARAMS;
+                break;
+            case PSO:
+                this.params = (RunConfig.OPTIMIZED) ? Driver.readControlParams((byte) 1, flag): RunConfig.PSO_PARAMS;
+                break;
+            default:
+                this.params = null;
+        }
+
+        this.stats = (RunConfig.RECORD_MODE) ? new RunningStats(cols) : null;
+        this.sketches = (RunConfig.RECORD_MODE) ? new QuantileSketch[cols] : null;
+        this.parts = (RunConfig.RECORD_MODE) ? new Part[RunConfig.STATS_PARTS] : null;
+        if (RunConfig.RECORD_MODE) {
+            RandomGenerator rng = Rng.create(Rng.derive("sketch".hashCode(), algorithm.label.hashCode(), flag));
+            for (int col = 0; col < cols; col++)
+                sketches[col] = new QuantileSketch(RunConfig.SKETCH_K, rng);
+            for (int part = 0; part < parts.length; part++)
+                parts[part] = new Part(part);
+        }
+        this.trialEvaluations = new long[RunConfig.TRIALS];
+        this.checkpoint = (RunConfig.CHECKPOINTS && RunConfig.RECORD_MODE) ? new Checkpoint(checkpointPath(), signature(), RunConfig.CHECKPOINT_MILLIS) : null;
+        this.rawCsv = (RunConfig.RECORD_MODE) ? new CsvAppender(Path.of(Utilities.genFileName(flag, algorithm.label + "_raw")), RunConfig.TRIALS, cols) : null;
+        this.fesCsv = (RunConfig.RECORD_MODE) ? new CsvAppender(Path.of(Utilities.genFileName(flag, algorithm.label + "_fes")), RunConfig.TRIALS, cols) : null;
+    }
+
+    /**
+     * @return the file which holds the completed trials, alongside the results
+     * @throws Exception
+     */
+    private Path checkpointPath() throws Exception {
+        return Path.of(Utilities.genFileName(flag, algorithm.label + "_trials")).resolveSibling(algorithm.label + "_trials.ckpt");
+    }
+
+    /**
+     * @return everything which determines the outcome of a trial, a checkpoint only applies to a job with the same
+     */
+    private String signature() throws Exception {
+        return String.format("%s %s params=%s %s", function.name(), algorithm.label, Arrays.toString(params), Checkpoint.configuration());
+    }
+
+    /**
+     * @return a short description, such as "Zakharov pso"
+     */
+    public String toString() {
+        return function.name() + " " + algorithm.label;
+    }
+
+    /**
+     * Runs a single independent trial of this simulation, recording into its own rows of observations
+     * @param trial
+     * @throws Exception
+     */
+    public void runTrial(int trial) throws Exception {
+        Record record = (RunConfig.RECORD_MODE) ? new Record() : null;
+        if (restore(trial, record)) {
+            stream(trial, record);
+            System.out.printf("%s%s %s %s Trial %s%d%s restored from checkpoint%s\n", Utilities.GREEN, function.name(), Utilities.WHITE, algorithm.label, Utilities.YELLOW, trial + 1, Utilities.WHITE, Utilities.RESET);
+            return;
+        }
+        CountingObjective counter = CountingObjective.wrap(function, RunConfig.MAX_FES);
+        RandomGenerator rng = Rng.forTrial(algorithm.label, flag, trial);
+        Run run;
+        switch (algorithm) {
+            case DE:
+                run = startDE(trial, counter, rng);
+                break;
+            case PSO:
+                run = startPSO(trial, counter, rng);
+                break;
+            case BB_ORIG:
+                run = startBB(trial, counter, rng, true);
+                break;
+            default:
+                run = startBB(trial, counter, rng, false);
+        }
+
+        TrialStatus status = new TrialStatus(function, run.population());
+        int iter = 0;
+        try {
+            for (; iter <= RunConfig.ITERATIONS; iter++) {
+                run.step(iter);
+                record(record, iter, run.best(), counter.count());
+                // stop once the termination criterion is met, the remaining observations keep the final values
+                status.update(iter, run.best(), counter.count());
+                if (termination.shouldStop(status)) {
+                    fill(record, iter + 1, run.best(), counter.count());
+                    break;
+                }
+            }
+        }
+        catch (CountingObjective.Exhausted e) {
+            // the budget ran out part way through iteration iter, which is abandoned
+            fill(record, iter, run.best(), counter.count());
+        }
+        trialEvaluations[trial] = counter.count();
+        save(trial, record);
+        stream(trial, record);
+        System.out.printf("%s%s %s %s Trial %s%d%s finished after %d iterations, %d evaluations%s\n", Utilities.GREEN, function.name(), Utilities.WHITE, algorithm.label, Utilities.YELLOW, trial + 1, Utilities.WHITE, Math.min(iter, RunConfig.ITERATIONS) + 1, counter.count(), Utilities.RESET);
+    }
+
+    /**
+     * write the recorded data to files if specified by RunConfig.java
+     */
+    public void writeResults() throws Exception {
+        if (RunConfig.RECORD_MODE) {
+            rawCsv.close();
+            fesCsv.close();
+            if (RunConfig.BINARY_RESULTS)
+                store().force();
+        }
+        if (RunConfig.RECORD_MODE) {
+            mergeParts();
+            Utilities.writeFile(stats.mean(), algorithm.label + "_avg", flag);
+            Utilities.writeFile(stats.variance(), algorithm.label + "_var", flag);
+            // every observation is a trial's best so far, so these are the best and worst trial at each iteration
+            Utilities.writeFile(stats.min(), algorithm.label + "_best", flag);
+            Utilities.writeFile(stats.max(), algorithm.label + "_worst", flag);
+            Utilities.writeFile(quantiles(), algorithm.label + "_quantiles", flag);
+        }
+        if (checkpoint != null)
+            checkpoint.delete();
+    }
+
+    /**
+     * Appends the rows of the completed trial to the raw and evaluation CSV files, and adds its observations to
+     * the statistics
+     */
+    private void stream(int trial, Record record) throws Exception {
+        if (!RunConfig.RECORD_MODE)
+            return;
+        rawCsv.append(trial, record.data);
+        fesCsv.append(trial, record.evaluations);
+        if (RunConfig.BINARY_RESULTS)
+            store().put(trial, record.data);
+        accumulate(trial, record.data);
+    }
+
+    /**
+     * Adds the observations of the trial to the statistics and quantile sketches of its part. The trials of a part
+     * are added in trial order, the ones which finish early wait for the earlier ones of the same part, so the
+     * statistics come out identical however the trials are scheduled.
+     */
+    private void accumulate(int trial, double[] row) {
+        Part part = parts[trial % parts.length];
+        synchronized (part) {
+            part.early.put(trial, row);
+            while (part.early.containsKey(part.nextTrial)) {
+                double[] next = part.early.remove(part.nextTrial);
+                part.nextTrial += parts.length;
+                part.stats.add(next);
+                for (int col = 0; col < cols; col++)
+                    part.sketches[col].add(next[col]);
+            }
+        }
+    }
+
+    /**
+     * Merges the statistics and sketches of every part into stats and sketches, in part order
+     */
+    private void mergeParts() {
+        for (Part part : parts) {
+            synchronized (part) {
+                stats.merge(part.stats);
+                for (int col = 0; col < cols; col++)
+                    sketches[col].merge(part.sketches[col]);
+            }
+        }
+    }
+
+    /**
+     * @return row i holds the RunConfig.QUANTILES[i] quantile over the trials of each recorded observation
+     */
+    private double[][] quantiles() {
+        double[][] quantiles = new double[RunConfig.QUANTILES.length][cols];
+        for (int i = 0; i < quantiles.length; i++) {
+            for (int col = 0; col < cols; col++)
+                quantiles[i][col] = sketches[col].quantile(RunConfig.QUANTILES[i]);
+        }
+        return quantiles;
+    }
+
+    /**
+     * @return the binary store of the raw results, created on first use
+     */
+    private synchronized ResultStore store() throws Exception {
+        if (rawStore == null) {
+            Path path = Path.of(Utilities.genFileName(flag, algorithm.label + "_raw")).resolveSibling(algorithm.label + "_raw.bin");
+            rawStore = ResultStore.create(path, RunConfig.TRIALS, cols);
+        }
+        return rawStore;
+    }
+
+    /**
+     * Saves the completed trial to the checkpoint, as its evaluation count followed by its rows of data and
+     * evaluations
+     */
+    private void save(int trial, Record record) throws Exception {
+        if (checkpoint == null)
+            return;
+        double[] entry = new double[1 + 2 * cols];
+        entry[0] = trialEvaluations[trial];
+        System.arraycopy(record.data, 0, entry, 1, cols);
+        System.arraycopy(record.evaluations, 0, entry, 1 + cols, cols);
+        checkpoint.put(trial, entry);
+    }
+
+    /**
+     * Restores the trial from the checkpoint, if it was completed before
+     * @return true if the trial was restored
+     */
+    private boolean restore(int trial, Record record) throws Exception {
+        double[] entry = (checkpoint == null) ? null : checkpoint.get(trial);
+        if (entry == null)
+            return false;
+        trialEvaluations[trial] = (long) entry[0];
+        System.arraycopy(entry, 1, record.data, 0, cols);
+        System.arraycopy(entry, 1 + cols, record.evaluations, 0, cols);
+        return true;
+    }
+
+    /**
+     * write data to structure if specified
+     */
+    private void record(Record record, int iter, double value, long fes) {
+        if (iter % RunConfig.GRANULARITY == 0 && RunConfig.RECORD_MODE) {
+            record.data[iter/RunConfig.GRANULARITY] = value;
+            record.evaluations[iter/RunConfig.GRANULARITY] = fes;
+        }
+    }
+
+    /**
+     * Fills every observation from iteration iter onwards with the supplied values, used when a trial stops early
+     */
+    private void fill(Record record, int iter, double value, long fes) {
+        if (!RunConfig.RECORD_MODE)
+            return;
+        for (int col = (iter + RunConfig.GRANULARITY - 1) / RunConfig.GRANULARITY; col < cols; col++) {
+            record.data[col] = value;
+            record.evaluations[col] = fes;
+        }
+    }
+
+    private Run startDE(int trial, ObjectiveFunction counter, RandomGenerator rng) throws Exception {
+        System.out.printf("%s%s %sRunning Differential Evolution Trial: %s%d%s\n", Utilities.RED, function.name(), Utilities.WHITE, Utilities.YELLOW, trial + 1, Utilities.RESET);
+        // set up the population independently, for each trial
+        DE_Population population = new DE_Population(params, RunConfig.PARTICLES, RunConfig.DIM, counter, rng);
+        return new Run() {
+            public void step(int iter) throws Exception {
+                // do a DE generation update
+                population.doIteration();
+            }
+            public double best() {
+                return population.bestEval;
+            }
+            public PopulationMatrix population() {
+                return population.population;
+            }
+        };
+    }
+
+    private Run startPSO(int trial, ObjectiveFunction counter, RandomGenerator rng) throws Exception {
+        System.out.printf("%s%s %s Running PSO Trial: %s%d%s\n", Utilities.RED, function.name(), Utilities.WHITE, Utilities.YELLOW, trial + 1, Utilities.RESET);
+        // set up the population independently, for each trial
+        PSO_Swarm swarm = new PSO_Swarm(params, RunConfig.PARTICLES, RunConfig.DIM, counter, rng);
+        return new Run() {
+            public void step(int iter) throws Exception {
+                // do a PSO procedure update
+                swarm.doUpdate();
+            }
+            public double best() {
+                return swarm.gBestEval;
+            }
+            public PopulationMatrix population() {
+                return swarm.positions;
+            }
+        };
+    }
+
+    private Run startBB(int trial, ObjectiveFunction counter, RandomGenerator rng, boolean orig) throws Exception {
+        String version = (orig) ? "Original": "Modified";
+        System.out.printf("%s%s %s Running %s BB Trial: %s%d%s\n", Utilities.RED, function.name(), Utilities.WHITE, version, Utilities.YELLOW, trial + 1, Utilities.RESET);
+        // set up the population independently, for each trial
+        BB_BC_Population population = new BB_BC_Population(RunConfig.PARTICLES, RunConfig.DIM, counter, orig, rng);
+        return new Run() {
+            public void step(int iter) throws Exception {
+                // do a BB-BC iteration
+                population.doIteration(iter);
+            }
+            public double best() {
+                return population.centroidEval;
+            }
+            public PopulationMatrix population() {
+                return population.population;
+            }
+        };
+    }
+
+}
@@ -1,3 +1,6 @@
+import java.util.OptionalDouble;
+import java.util.stream.IntStream;
+
 public class SingleObjectiveFunctions {
     /**
      * This class is designed to be statically referenced, it should not be instantiable
@@ -6,127 +9,169 @@ public class SingleObjectiveFunctions {
 
     }
 
+    // the benchmark functions, registered in the ObjectiveRegistry under the flag given in their documentation
+    public static final ObjectiveFunction ELLIP = new Ellip();
+    public static final ObjectiveFunction ACKLEY = new Ackley();
+    public static final ObjectiveFunction RASTRIGIN = new Rastrigin();
+    public static final ObjectiveFunction STEP = new Step();
+    public static final ObjectiveFunction COSMIX = new CosMix();
+    public static final ObjectiveFunction QUARTIC = new Quartic();
+    public static final ObjectiveFunction ZAKHAROV = new Zakharov();
+    public static final ObjectiveFunction SALOMON = new Salomon();
+    public static final ObjectiveFunction BENTCIGAR = new BentCigar();
+    public static final ObjectiveFunction MISHRA1 = new Mishra1();
+
+    // name of the SIMD backend class, it lives in simd/ and is only compiled when jdk.incubator.vector is available
+    private static final String SIMD_BACKEND = "VectorApiKernels";
+
+    // the SIMD kernels in use, null when evaluation runs on the scalar kernels
+    private static volatile ObjectiveKernels simd = (RunConfig.SIMD_KERNELS) ? loadSimd() : null;
+
+    /**
+     * Selects between the SIMD and scalar evaluation kernels at runtime. Requesting SIMD falls back to the
+     * scalar kernels if the SIMD backend or the jdk.incubator.vector module is absent
+     * @param enabled true to evaluate with the SIMD kernels
+     * @return true if the SIMD kernels are now in use
+     */
+    public static boolean useSimd(boolean enabled) {
+        simd = (enabled) ? loadSimd() : null;
+        return simd != null;
+    }
+
+    /**
+     * @return true if evaluation currently runs on the SIMD kernels
+     */
+    public static boolean simdEnabled() {
+        return simd != null;
+    }
+
+    private static ObjectiveKernels loadSimd() {
+        try {
+            return (ObjectiveKernels) Class.forName(SIMD_BACKEND).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // the backend was not compiled, or the vector module was not added to this JVM
+            return null;
+        }
+    }
+
     /**
      * Defers to correct evaluation procedure as referenced by flag argument
      */
     public static double evaluate(Vector pos, byte FLAG) throws Exception {
-        switch (FLAG) {
-            // Ellip benchmark function
-            case 1:
-                return Ellip.evaluate(pos);
-            case 2:
-                return Ackley.evaluate(pos);
-            case 3:
-                return Rastrigin.evaluate(pos);
-            case 4:
-                return Step.evaluate(pos);
-            case 5:
-                return CosMix.evaluate(pos);
-            case 6:
-                return Quartic.evaluate(pos);
-            case 7:
-                return Zakharov.evaluate(pos);
-            case 8:
-                return Salomon.evaluate(pos);
-            case 9:
-                return BentCigar.evaluate(pos);
-            case 10:
-                return Mishra1.evaluate(pos);
-            default:
-                throw new Exception("Function FLAG not recognized");
+        return ObjectiveRegistry.get(FLAG).evaluate(pos);
+    }
+
+    /**
+     * Evaluates the specified row of a population matrix with the supplied function, without copying the row
+     */
+    public static double evaluate(PopulationMatrix pop, int row, ObjectiveFunction function) {
+        return function.evaluate(pop.data(), pop.offset(row), pop.cols());
+    }
+
+    /**
+     * Evaluates every row of the population matrix, writing the evaluation of row i to out[i]
+     * @param in the population to evaluate
+     * @param out the evaluations, must hold at least in.rows() entries
+     * @param function the function to evaluate
+     * @param parallel if true, the rows are split into chunks which are evaluated on the common fork join pool
+     * @throws Exception if out is too short
+     */
+    public static void evaluateBatch(PopulationMatrix in, double[] out, ObjectiveFunction function, boolean parallel) throws Exception {
+        if (out.length < in.rows())
+            throw new Exception("Output Length Mismatch");
+        double[] x = in.data();
+        int len = in.cols();
+        forEachChunk(in.rows(), parallel, (start, end) -> {
+            for (int row = start; row < end; row++) {
+                out[row] = function.evaluate(x, row * len, len);
+            }
+        });
+    }
+
+    /**
+     * Evaluates every row of in, writing the evaluation of in[i] to out[i]
+     * @param in the vectors to evaluate, one per row
+     * @param out the evaluations, must hold at least in.length entries
+     * @param function the function to evaluate
+     * @param parallel if true, the rows are split into chunks which are evaluated on the common fork join pool
+     * @throws Exception if out is too short
+     */
+    public static void evaluateBatch(double[][] in, double[] out, ObjectiveFunction function, boolean parallel) throws Exception {
+        if (out.length < in.length)
+            throw new Exception("Output Length Mismatch");
+        forEachChunk(in.length, parallel, (start, end) -> {
+            for (int row = start; row < end; row++) {
+                out[row] = function.evaluate(in[row], 0, in[row].length);
+            }
+        });
+    }
+
+    /**
+     * Runs the chunk over [0, rows), either in one piece or split into at most BATCH_CHUNKS pieces on the common pool
+     */
+    private static void forEachChunk(int rows, boolean parallel, Chunk chunk) {
+        int chunks = Math.min(rows, RunConfig.BATCH_CHUNKS);
+        if (!parallel || chunks < 2) {
+            chunk.run(0, rows);
+            return;
         }
+        IntStream.range(0, chunks).parallel().forEach(c -> chunk.run(c * rows / chunks, (c + 1) * rows / chunks));
+    }
+
+    /**
+     * A range of rows [start, end) of a batch evaluation
+     */
+    private interface Chunk {
+        void run(int start, int end);
     }
 
     /**
      * Defers to correct getDomain procedure as referenced by flag argument
      */
     public static Vector getDomain(byte FLAG) throws Exception {
-        switch (FLAG) {
-            // Ellip benchmark function
-            case 1:
-                return Ellip.getDomain();
-            case 2:
-                return Ackley.getDomain();
-            case 3:
-                return Rastrigin.getDomain();
-            case 4:
-                return Step.getDomain();
-            case 5:
-                return CosMix.getDomain();
-            case 6:
-                return Quartic.getDomain();
-            case 7:
-                return Zakharov.getDomain();
-            case 8:
-                return Salomon.getDomain();
-            case 9:
-                return BentCigar.getDomain();
-            case 10:
-                return Mishra1.getDomain();
-            default:
-                throw new Exception("Function FLAG not recognized");
-        }
+        ObjectiveFunction function = ObjectiveRegistry.get(FLAG);
+        double[] dat = {function.lower(), function.upper()};
+        return new Vector(dat);
     }
 
     /**
      * Defers to correct inDomain procedure as referenced by flag argument
      */
     public static boolean inDomain(Vector pos, byte FLAG) throws Exception {
-        switch (FLAG) {
-            // Ellip benchmark function
-            case 1:
-                return Ellip.inDomain(pos);
-            case 2:
-                return Ackley.inDomain(pos);
-            case 3:
-                return Rastrigin.inDomain(pos);
-            case 4:
-                return Step.inDomain(pos);
-            case 5:
-                return CosMix.inDomain(pos);
-            case 6:
-                return Quartic.inDomain(pos);
-            case 7:
-                return Zakharov.inDomain(pos);
-            case 8:
-                return Salomon.inDomain(pos);
-            case 9:
-                return BentCigar.inDomain(pos);
-            case 10:
-                return Mishra1.inDomain(pos);
-            default:
-                throw new Exception("Function FLAG not recognized");
-        }
+        return ObjectiveRegistry.get(FLAG).inDomain(pos.data(), 0, pos.size());
     }
 
-     /**
+    /**
      * Defers to correct name procedure specified by the FLAG
      */
     public static String getName(byte FLAG) throws Exception {
-        switch (FLAG) {
-            // Ellip benchmark function
-            case 1:
-                return Ellip.name();
-            case 2:
-                return Ackley.name();
-            case 3:
-                return Rastrigin.name();
-            case 4:
-                return Step.name();
-            case 5:
-                return CosMix.name();
-            case 6:
-                return Quartic.name();
-            case 7:
-                return Zakharov.name();
-            case 8:
-                return Salomon.name();
-            case 9:
-                return BentCigar.name();
-            case 10:
-                return Mishra1.name();
-            default:
-                throw new Exception("Function FLAG not recognized");
+        return ObjectiveRegistry.get(FLAG).name();
+    }
+
+    /**
+     * Common state of the benchmark functions below, each has a box shaped domain and a known minimum of 0
+     */
+    private abstract static class Benchmark implements ObjectiveFunction {
+        private final String name;
+        private final double lower;
+        private final double upper;
+
+        Benchmark(String name, double lower, double upper) {
+            this.name = name;
+            this.lower = lower;
+            this.upper = upper;
+        }
+        public double lower() {
+            return this.lower;
+        }
+        public double upper() {
+            return this.upper;
+        }
+        public String name() {
+            return this.name;
+        }
+        public OptionalDouble optimum() {
+            return OptionalDouble.of(0.0);
         }
     }
 
@@ -134,32 +179,29 @@ public class SingleObjectiveFunctions {
      * Ackley benchmark function, it is denoted by the flag [2]
      *      The minimum of this function is 0 where each x_i = 0
      */
-    static class Ackley {
-        public static double evaluate(Vector pos) throws Exception {
+    static class Ackley extends Benchmark {
+        Ackley() {
+            super("Ackley", -5, 5);
+        }
+        public double evaluate(double[] x, int off, int len) {
+            ObjectiveKernels simd = SingleObjectiveFunctions.simd;
+            return (simd != null) ? simd.ackley(x, off, len) : kernel(x, off, len);
+        }
+        public static double kernel(double[] x, int off, int len) {
             double a = 20;
             double b = 0.2;
             double c = 2 * Math.PI;
 
-            double firstTerm = -a * Math.exp(-b * Math.sqrt(pos.pow(2).average()));
-            double secondTerm = Math.exp(pos.scale(c).cos().average());
- 
-            return firstTerm - secondTerm + a + Math.E;
-        }
-        public static Vector getDomain() {
-            double[] dat = {-5, 5};
-            return new Vector(dat);
-        }
-        public static boolean inDomain(Vector pos) throws Exception {
-            Vector dom = getDomain();
-            for (int i = 0; i < pos.size(); i++) {
-                boolean outDom = pos.atIndex(i) < dom.atIndex(0) || pos.atIndex(i) > dom.atIndex(1);
-                if (outDom)
-                    return false;
+            double sumSquares = 0.0;
+            double sumCos = 0.0;
+            for (int i = off; i < off + len; i++) {
+                sumSquares += x[i] * x[i];
+                sumCos += Math.cos(c * x[i]);
             }
-            return true;
-        }
-        public static String name() {
-            return "Ackley";
+            double firstTerm = -a * Math.exp(-b * Math.sqrt(sumSquares / len));
+            double secondTerm = Math.exp(sumCos / len);
+
+            return firstTerm - secondTerm + a + Math.E;
         }
     }
 
@@ -167,56 +209,48 @@ public class SingleObjectiveFunctions {
      * BentCigar benchmark function, it is denoted by the flag [9]
      *      The minimum of this function is 0 where each x_i = 0
      */
-    static class BentCigar {
-        public static double evaluate(Vector pos) throws Exception {
-            return Math.pow(pos.atIndex(0),2) + 1_000_000.0 * pos.pow(2).sum(1);
-        }
-        public static Vector getDomain() {
-            double[] dat = {-100, 100};
-            return new Vector(dat);
-        }
-        public static boolean inDomain(Vector pos) throws Exception {
-            Vector dom = getDomain();
-            for (int i = 0; i < pos.size(); i++) {
-                boolean outDom = pos.atIndex(i) < dom.atIndex(0) || pos.atIndex(i) > dom.atIndex(1);
-                if (outDom)
-                    return false;
-            }
-            return true;
+    static class BentCigar extends Benchmark implements SeparableObjective {
+        BentCigar() {
+            super("BentCigar", -100, 100);
+        }
+        public double evaluate(double[] x, int off, int len) {
+            ObjectiveKernels simd = SingleObjectiveFunctions.simd;
+            return (simd != null) ? simd.bentCigar(x, off, len) : kernel(x, off, len);
+        }
+        public double term(double xi, int i) {
+            return (i == 0) ? xi * xi : 1_000_000.0 * (xi * xi);
         }
-        public static String name() {
-            return "BentCigar";
+        public static double kernel(double[] x, int off, int len) {
+            double tail = 0.0;
+            for (int i = off + 1; i < off + len; i++) {
+                tail += x[i] * x[i];
+            }
+            return x[off] * x[off] + 1_000_000.0 * tail;
         }
     }
 
-
     /**
      * Zakharov's benchmark function, it is denoted by the flag [7]
      *      The minimum of this function is 0 where each x_i = 0
      */
-    static class Zakharov {
-        public static double evaluate(Vector pos) throws Exception {
-            Vector ascending = Vector.Ascending(pos.size());
-            double firstComp = pos.pow(2).sum();
-            double secondComp = Math.pow(ascending.scale(0.5).prod(pos).sum(), 2);
-            double thirdComp = Math.pow(ascending.scale(0.5).prod(pos).sum(), 4);
-            return firstComp + secondComp + thirdComp;
-        }
-        public static Vector getDomain() {
-            double[] dat = {-5, 10};
-            return new Vector(dat);
-        }
-        public static boolean inDomain(Vector pos) throws Exception {
-            Vector dom = getDomain();
-            for (int i = 0; i < pos.size(); i++) {
-                boolean outDom = pos.atIndex(i) < dom.atIndex(0) || pos.atIndex(i) > dom.atIndex(1);
-                if (outDom)
-                    return false;
+    static class Zakharov extends Benchmark {
+        Zakharov() {
+            super("Zakharov", -5, 10);
+        }
+        public double evaluate(double[] x, int off, int len) {
+            ObjectiveKernels simd = SingleObjectiveFunctions.simd;
+            return (simd != null) ? simd.zakharov(x, off, len) : kernel(x, off, len);
+        }
+        public static double kernel(double[] x, int off, int len) {
+            double firstComp = 0.0;
+            double weighted = 0.0;
+            for (int i = 0; i < len; i++) {
+                double xi = x[off + i];
+                firstComp += xi * xi;
+                weighted += 0.5 * (i + 1) * xi;
             }
-            return true;
-        }
-        public static String name() {
-            return "Zakharov";
+            double secondComp = weighted * weighted;
+            return firstComp + secondComp + secondComp * secondComp;
         }
     }
 
@@ -224,26 +258,20 @@ public class SingleObjectiveFunctions {
      * Mishra1 benchmark function, it is denoted by the flag [10]
      *      The minimum of this function is 0 where each x_i = 0
      */
-    static class Mishra1 {
-        public static double evaluate(Vector pos) throws Exception {
-            double g = pos.size() - pos.sum(0, pos.size() - 2);
-            return Math.pow(1 + g, g) - 2;
+    static class Mishra1 extends Benchmark {
+        Mishra1() {
+            super("Mishra1", 0, 1);
         }
-        public static Vector getDomain() {
-            double[] dat = {0, 1};
-            return new Vector(dat);
+        public double evaluate(double[] x, int off, int len) {
+            return kernel(x, off, len);
         }
-        public static boolean inDomain(Vector pos) throws Exception {
-            Vector dom = getDomain();
-            for (int i = 0; i < pos.size(); i++) {
-                boolean outDom = pos.atIndex(i) < dom.atIndex(0) || pos.atIndex(i) > dom.atIndex(1);
-                if (outDom)
-                    return false;
+        public static double kernel(double[] x, int off, int len) {
+            double sum = 0.0;
+            for (int i = off; i < off + len - 1; i++) {
+                sum += x[i];
             }
-            return true;
-        }
-        public static String name() {
-            return "Mishra1";
+            double g = len - sum;
+            return Math.pow(1 + g, g) - 2;
         }
     }
 
@@ -251,53 +279,50 @@ public class SingleObjectiveFunctions {
      * Salomon's benchmark function, it is denoted by the flag [8]
      *      The minimum of this function is 0 where each x_i = 0
      */
-    static class Salomon {
-        public static double evaluate(Vector pos) throws Exception {
-            double term = Math.sqrt(pos.pow(2).sum());
-            return 1 - Math.cos(2 * Math.PI * term) + 0.1 * term;
-        }
-        public static Vector getDomain() {
-            double[] dat = {-100, 100};
-            return new Vector(dat);
-        }
-        public static boolean inDomain(Vector pos) throws Exception {
-            Vector dom = getDomain();
-            for (int i = 0; i < pos.size(); i++) {
-                boolean outDom = pos.atIndex(i) < dom.atIndex(0) || pos.atIndex(i) > dom.atIndex(1);
-                if (outDom)
-                    return false;
+    static class Salomon extends Benchmark {
+        Salomon() {
+            super("Salomon", -100, 100);
+        }
+        public double evaluate(double[] x, int off, int len) {
+            ObjectiveKernels simd = SingleObjectiveFunctions.simd;
+            return (simd != null) ? simd.salomon(x, off, len) : kernel(x, off, len);
+        }
+        public static double kernel(double[] x, int off, int len) {
+            double sumSquares = 0.0;
+            for (int i = off; i < off + len; i++) {
+                sumSquares += x[i] * x[i];
             }
-            return true;
-        }
-        public static String name() {
-            return "Salomon";
+            double term = Math.sqrt(sumSquares);
+            return 1 - Math.cos(2 * Math.PI * term) + 0.1 * term;
         }
     }
 
-
     /**
      * Cosine Mixture benchmark function, it is denoted by the flag [5]
      *      The minimum of this function is 0 where each x_i = 0
      */
-    static class CosMix {
-        public static double evaluate(Vector pos) throws Exception {
-            return -0.1 * pos.scale(5 * Math.PI).cos().sum() + pos.pow(2).sum() + 0.1 * RunConfig.DIM;
-        }
-        public static Vector getDomain() {
-            double[] dat = {-1, 1};
-            return new Vector(dat);
-        }
-        public static boolean inDomain(Vector pos) throws Exception {
-            Vector dom = getDomain();
-            for (int i = 0; i < pos.size(); i++) {
-                boolean outDom = pos.atIndex(i) < dom.atIndex(0) || pos.atIndex(i) > dom.atIndex(1);
-                if (outDom)
-                    return false;
+    static class CosMix extends Benchmark implements SeparableObjective {
+        CosMix() {
+            super("CosMix", -1, 1);
+        }
+        public double evaluate(double[] x, int off, int len) {
+            ObjectiveKernels simd = SingleObjectiveFunctions.simd;
+            return (simd != null) ? simd.cosMix(x, off, len) : kernel(x, off, len);
+        }
+        public double term(double xi, int i) {
+            return -0.1 * Math.cos(5 * Math.PI * xi) + xi * xi;
+        }
+        public double offset(int len) {
+            return 0.1 * len;
+        }
+        public static double kernel(double[] x, int off, int len) {
+            double sumCos = 0.0;
+            double sumSquares = 0.0;
+            for (int i = off; i < off + len; i++) {
+                sumCos += Math.cos(5 * Math.PI * x[i]);
+                sumSquares += x[i] * x[i];
             }
-            return true;
-        }
-        public static String name() {
-            return "CosMix";
+            return -0.1 * sumCos + sumSquares + 0.1 * len;
         }
     }
 
@@ -305,26 +330,27 @@ public class SingleObjectiveFunctions {
      * Rastrigin benchmark function, it is denoted by the flag [3]
      *      The minimum of this function is 0 where each x_i = 0
      */
-    static class Rastrigin {
-        public static double evaluate(Vector pos) throws Exception {
+    static class Rastrigin extends Benchmark implements SeparableObjective {
+        Rastrigin() {
+            super("Rastrigin", -5.12, 5.12);
+        }
+        public double evaluate(double[] x, int off, int len) {
+            ObjectiveKernels simd = SingleObjectiveFunctions.simd;
+            return (simd != null) ? simd.rastrigin(x, off, len) : kernel(x, off, len);
+        }
+        public double term(double xi, int i) {
+            return xi * xi - 10 * Math.cos(2 * Math.PI * xi);
+        }
+        public double offset(int len) {
+            return 10.0 * len;
+        }
+        public static double kernel(double[] x, int off, int len) {
             double a = 10;
-            return a * pos.size() + (pos.pow(2).sub(pos.scale(2 * Math.PI).cos().scale(a)).sum());
-        }
-        public static Vector getDomain() {
-            double[] dat = {-5.12, 5.12};
-            return new Vector(dat);
-        }
-        public static boolean inDomain(Vector pos) throws Exception {
-            Vector dom = getDomain();
-            for (int i = 0; i < pos.size(); i++) {
-                boolean outDom = pos.atIndex(i) < dom.atIndex(0) || pos.atIndex(i) > dom.atIndex(1);
-                if (outDom)
-                    return false;
+            double sum = 0.0;
+            for (int i = off; i < off + len; i++) {
+                sum += x[i] * x[i] - a * Math.cos(2 * Math.PI * x[i]);
             }
-            return true;
-        }
-        public static String name() {
-            return "Rastrigin";
+            return a * len + sum;
         }
     }
 
@@ -332,82 +358,74 @@ public class SingleObjectiveFunctions {
      * Quartic benchmark function, it is denoted by the flag [6]
      *      The minimum of this function is 0 where each x_i = 0
      */
-    static class Quartic {
-        public static double evaluate(Vector pos) throws Exception {
-           return Vector.Ascending(pos.size()).prod(pos.pow(4)).sum();
-        }
-        public static Vector getDomain() {
-            double[] dat = {-1.28, 1.28};
-            return new Vector(dat);
-        }
-        public static boolean inDomain(Vector pos) throws Exception {
-            Vector dom = getDomain();
-            for (int i = 0; i < pos.size(); i++) {
-                boolean outDom = pos.atIndex(i) < dom.atIndex(0) || pos.atIndex(i) > dom.atIndex(1);
-                if (outDom)
-                    return false;
+    static class Quartic extends Benchmark implements SeparableObjective {
+        Quartic() {
+            super("Quartic", -1.28, 1.28);
+        }
+        public double evaluate(double[] x, int off, int len) {
+            ObjectiveKernels simd = SingleObjectiveFunctions.simd;
+            return (simd != null) ? simd.quartic(x, off, len) : kernel(x, off, len);
+        }
+        public double term(double xi, int i) {
+            double sq = xi * xi;
+            return (i + 1) * (sq * sq);
+        }
+        public static double kernel(double[] x, int off, int len) {
+            double sum = 0.0;
+            for (int i = 0; i < len; i++) {
+                double sq = x[off + i] * x[off + i];
+                sum += (i + 1) * (sq * sq);
             }
-            return true;
-        }
-        public static String name() {
-            return "Quartic";
+            return sum;
         }
     }
 
-
     /**
      * Step benchmark function, it is denoted by the flag [4]
      *      The minimum of this function is 0 where each x_i = (-1, 1)
      *      There are an infinite amount of global minimums with this function
      */
-    static class Step {
-        public static double evaluate(Vector pos) throws Exception {
-            return pos.pow(2).floor().sum();
-        }
-        public static Vector getDomain() {
-            double[] dat = {-100, 100};
-            return new Vector(dat);
-        }
-        public static boolean inDomain(Vector pos) throws Exception {
-            Vector dom = getDomain();
-            for (int i = 0; i < pos.size(); i++) {
-                boolean outDom = pos.atIndex(i) < dom.atIndex(0) || pos.atIndex(i) > dom.atIndex(1);
-                if (outDom)
-                    return false;
-            }
-            return true;
+    static class Step extends Benchmark implements SeparableObjective {
+        Step() {
+            super("Step", -100, 100);
+        }
+        public double evaluate(double[] x, int off, int len) {
+            ObjectiveKernels simd = SingleObjectiveFunctions.simd;
+            return (simd != null) ? simd.step(x, off, len) : kernel(x, off, len);
         }
-        public static String name() {
-            return "Step";
+        public double term(double xi, int i) {
+            return (int) (xi * xi);
+        }
+        public static double kernel(double[] x, int off, int len) {
+            double sum = 0.0;
+            for (int i = off; i < off + len; i++) {
+                sum += (int) (x[i] * x[i]);
+            }
+            return sum;
         }
     }
 
-
     /**
      * Elliptic benchmark function, it is denonted by the flag [1] 
      *      The minimum of this function is 0, where each x_i = 0 
      */
-    static class Ellip {
-
-        public static double evaluate(Vector pos) throws Exception {
-            Vector square = pos.pow(2);
-            return Vector.Ascending(pos.size()).prod(square).sum();
-        }
-        public static Vector getDomain() {
-            double[] dat = {-5, 5};
-            return new Vector(dat);
-        }
-        public static boolean inDomain(Vector pos) throws Exception {
-            Vector dom = getDomain();
-            for (int i = 0; i < pos.size(); i++) {
-                boolean outDom = pos.atIndex(i) < dom.atIndex(0) || pos.atIndex(i) > dom.atIndex(1);
-                if (outDom)
-                    return false;
-            }
-            return true;
+    static class Ellip extends Benchmark implements SeparableObjective {
+        Ellip() {
+            super("Ellip", -5, 5);
+        }
+        public double evaluate(double[] x, int off, int len) {
+            ObjectiveKernels simd = SingleObjectiveFunctions.simd;
+            return (simd != null) ? simd.ellip(x, off, len) : kernel(x, off, len);
         }
-        public static String name() {
-            return "Ellip";
+        public double term(double xi, int i) {
+            return (i + 1) * (xi * xi);
+        }
+        public static double kernel(double[] x, int off, int len) {
+            double sum = 0.0;
+            for (int i = 0; i < len; i++) {
+                sum += (i + 1) * (x[off + i] * x[off + i]);
+            }
+            return sum;
         }
     }
     
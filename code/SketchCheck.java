@@ -0,0 +1,131 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Checks that a QuantileSketch merged from the sketches of separate parts of a stream answers quantiles within the
+ * KLL rank error of the exact quantiles of the whole stream.
+ *
+ * A stream of ITEMS random observations, spread over several orders of magnitude like the best fitness of a trial,
+ * is split over PARTS sketches the way SimulationJob splits its trials, item t going to part t % PARTS, and the
+ * parts are merged in order. For each checked quantile the rank of the merged answer in the sorted stream must be
+ * within BOUND / k of the quantile asked for. A sketch of the whole stream is checked against the same bound, and
+ * a merge of parts which together hold fewer than k items must answer exactly.
+ *
+ * Run with java SketchCheck, exits with status 1 if a sketch is outside the bound.
+ */
+public class SketchCheck {
+
+    // the rank error of KLL is about 1.7 / k with high probability, this leaves some margin
+    private static final double BOUND = 2.5;
+
+    private static final int ITEMS = 100_000;
+    private static final int PARTS = 8;
+
+    // the quantiles checked
+    private static final double[] QUANTILES = {0.01, 0.05, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99};
+
+    public static void main(String[] args) throws Exception {
+        int k = RunConfig.SKETCH_K;
+        RandomGenerator rng = Rng.create(Rng.derive("sketch check".hashCode()));
+        double[] stream = new double[ITEMS];
+        for (int t = 0; t < ITEMS; t++)
+            stream[t] = Math.pow(10, 6 * rng.nextDouble()) * (1 + rng.nextGaussian() * 0.1);
+
+        int failures = check("merged", merged(stream, ITEMS, k, rng), stream, ITEMS, BOUND / k);
+        QuantileSketch whole = new QuantileSketch(k, rng);
+        for (double x : stream)
+            whole.add(x);
+        failures += check("sequential", whole, stream, ITEMS, BOUND / k);
+        // fewer items than k are never compacted, so the answers are exact
+        failures += check("small merged", merged(stream, k - 1, k, rng), stream, k - 1, 0.0);
+
+        if (failures > 0) {
+            System.out.printf("%s%d quantiles are outside the rank error bound%s\n", Utilities.RED, failures, Utilities.RESET);
+            System.exit(1);
+        }
+        System.out.printf("%sMerged sketches are within the rank error bound%s\n", Utilities.GREEN, Utilities.RESET);
+    }
+
+    /**
+     * @return a sketch of the first n items of the stream, merged from PARTS sketches of interleaved items
+     */
+    private static QuantileSketch merged(double[] stream, int n, int k, RandomGenerator rng) {
+        QuantileSketch[] parts = new QuantileSketch[PARTS];
+        for (int part = 0; part < PARTS; part++)
+            parts[part] = new QuantileSketch(k, rng);
+        for (int t = 0; t < n; t++)
+            parts[t % PARTS].add(stream[t]);
+        QuantileSketch merged = new QuantileSketch(k, rng);
+        for (QuantileSketch part : parts)
+            merged.merge(part);
+        return merged;
+    }
+
+    /**
+     * Compares the quantiles of the sketch with the ranks of its answers among the first n items of the stream
+     * @param name describes the sketch
+     * @param sketch
+     * @param stream
+     * @param n
+     * @param bound the largest rank error allowed, as a fraction of n
+     * @return the number of quantiles outside the bound
+     */
+    private static int check(String name, QuantileSketch sketch, double[] stream, int n, double bound) {
+        double[] sorted = Arrays.copyOf(stream, n);
+        Arrays.sort(sorted);
+        int failures = 0;
+        double worst = 0.0;
+        if (sketch.count() != n) {
+            failures++;
+            System.out.printf("%s%s sketch holds %d items, the stream %d%s\n", Utilities.RED, name, sketch.count(), n, Utilities.RESET);
+        }
+        for (double q : QUANTILES) {
+            double answer = sketch.quantile(q);
+            // the ranks the answer covers among the sorted items, it is within bound if any of them is
+            int low = lowerBound(sorted, answer);
+            int high = upperBound(sorted, answer);
+            double target = Math.ceil(q * n);
+            double error = (target < low + 1) ? (low + 1 - target) / n : (target > high) ? (target - high) / n : 0.0;
+            worst = Math.max(worst, error);
+            if (!(error <= bound)) {
+                failures++;
+                System.out.printf("%s%s sketch, quantile %s: %s has rank error %s%s\n", Utilities.RED, name, q, answer, error, Utilities.RESET);
+            }
+        }
+        System.out.printf("%s%s sketch %slargest rank error %s, bound %s%s\n", Utilities.GREEN, name, Utilities.WHITE, worst, bound, Utilities.RESET);
+        return failures;
+    }
+
+    /**
+     * @return the number of sorted items smaller than x
+     */
+    private static int lowerBound(double[] sorted, double x) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < x)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * @return the number of sorted items no larger than x
+     */
+    private static int upperBound(double[] sorted, double x) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= x)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+}
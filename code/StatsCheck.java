@@ -0,0 +1,77 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Checks that RunningStats merged from separate parts agree with RunningStats of the same rows added in sequence.
+ *
+ * Rows of random observations, spread over several orders of magnitude like the best fitness of a trial, are split
+ * over PARTS accumulators the way SimulationJob splits its trials, row t going to part t % PARTS, and the parts are
+ * merged in order. The merged count, minimum and maximum must equal the sequential ones exactly, and the mean and
+ * variance must agree within TOLERANCE relative to the sequential value, as the merge only reorders the rounding.
+ *
+ * Run with java StatsCheck, exits with status 1 if the merged statistics disagree.
+ */
+public class StatsCheck {
+
+    private static final double TOLERANCE = 1e-12;
+
+    private static final int ROWS = 1000;
+    private static final int COLS = 50;
+    private static final int PARTS = 8;
+
+    public static void main(String[] args) throws Exception {
+        RandomGenerator rng = Rng.create(Rng.derive("stats".hashCode()));
+        double[][] data = new double[ROWS][COLS];
+        for (double[] row : data) {
+            for (int col = 0; col < COLS; col++)
+                row[col] = Math.pow(10, 6 * rng.nextDouble() - col % 4) * (1 + rng.nextGaussian() * 0.1);
+        }
+
+        RunningStats sequential = RunningStats.of(data);
+        RunningStats[] parts = new RunningStats[PARTS];
+        for (int part = 0; part < PARTS; part++)
+            parts[part] = new RunningStats(COLS);
+        for (int t = 0; t < ROWS; t++)
+            parts[t % PARTS].add(data[t]);
+        RunningStats merged = new RunningStats(COLS);
+        for (RunningStats part : parts)
+            merged.merge(part);
+
+        int failures = 0;
+        if (merged.count() != sequential.count()) {
+            failures++;
+            System.out.printf("%scount: merged %d, sequential %d%s\n", Utilities.RED, merged.count(), sequential.count(), Utilities.RESET);
+        }
+        failures += compare("mean", merged.mean(), sequential.mean(), TOLERANCE);
+        failures += compare("variance", merged.variance(), sequential.variance(), TOLERANCE);
+        failures += compare("min", merged.min(), sequential.min(), 0.0);
+        failures += compare("max", merged.max(), sequential.max(), 0.0);
+        if (failures > 0) {
+            System.out.printf("%sMerged statistics disagree with sequential statistics in %d places%s\n", Utilities.RED, failures, Utilities.RESET);
+            System.exit(1);
+        }
+        System.out.printf("%sMerged statistics agree with sequential statistics%s\n", Utilities.GREEN, Utilities.RESET);
+    }
+
+    /**
+     * @param name the statistic compared
+     * @param actual
+     * @param expected
+     * @param tolerance the largest relative difference allowed
+     * @return the number of columns which differ by more than the tolerance
+     */
+    private static int compare(String name, double[] actual, double[] expected, double tolerance) {
+        int failures = 0;
+        double worst = 0.0;
+        for (int col = 0; col < expected.length; col++) {
+            double error = Math.abs(actual[col] - expected[col]) / Math.abs(expected[col]);
+            worst = Math.max(worst, error);
+            if (!(error <= tolerance)) {
+                failures++;
+                System.out.printf("%s%s of column %d: merged %s, sequential %s%s\n", Utilities.RED, name, col, actual[col], expected[col], Utilities.RESET);
+            }
+        }
+        System.out.printf("%s%s %slargest relative difference %s%s\n", Utilities.GREEN, name, Utilities.WHITE, worst, Utilities.RESET);
+        return failures;
+    }
+
+}
@@ -0,0 +1,104 @@
+/**
+ * A condition under which a trial stops before RunConfig.ITERATIONS.
+ *
+ * Criteria are checked after every iteration against the trial's TrialStatus, and can be combined with or() and
+ * and(). Criteria must not keep state of their own, whatever they need to remember lives in the status, so a
+ * single criterion can be shared by every trial.
+ */
+@FunctionalInterface
+public interface TerminationCriterion {
+
+    /**
+     * @param status the progress of the trial, after its latest iteration
+     * @return true if the trial should stop now
+     */
+    boolean shouldStop(TrialStatus status);
+
+    /**
+     * @param other
+     * @return a criterion which stops as soon as either this or other would
+     */
+    default TerminationCriterion or(TerminationCriterion other) {
+        return status -> shouldStop(status) || other.shouldStop(status);
+    }
+
+    /**
+     * @param other
+     * @return a criterion which only stops once both this and other would
+     */
+    default TerminationCriterion and(TerminationCriterion other) {
+        return status -> shouldStop(status) && other.shouldStop(status);
+    }
+
+    /**
+     * @return a criterion which never stops, so the trial runs all RunConfig.ITERATIONS
+     */
+    static TerminationCriterion never() {
+        return status -> false;
+    }
+
+    /**
+     * Stops once the best evaluation is within error of the function's known optimum. Never stops for a
+     * function whose optimum is not known.
+     * @param error
+     * @return
+     */
+    static TerminationCriterion targetError(double error) {
+        return status -> status.error() <= error;
+    }
+
+    /**
+     * @param generations
+     * @return a criterion which stops once the best evaluation has not improved for this many iterations
+     */
+    static TerminationCriterion stagnation(int generations) {
+        return status -> status.iteration - status.lastImprovement >= generations;
+    }
+
+    /**
+     * Stops once the population has collapsed, its spread has fallen below the supplied fraction of the domain width
+     * @param fraction
+     * @return
+     */
+    static TerminationCriterion diversity(double fraction) {
+        return status -> status.diversity() < fraction;
+    }
+
+    /**
+     * @param millis
+     * @return a criterion which stops once the trial has run for this many milliseconds
+     */
+    static TerminationCriterion wallClock(long millis) {
+        return status -> status.elapsedMillis() >= millis;
+    }
+
+    /**
+     * Stops once the trial has used this many function evaluations. This only stops between iterations, a hard
+     * budget which also stops part way through an iteration is set on the trial's CountingObjective
+     * @param evaluations
+     * @return
+     */
+    static TerminationCriterion maxEvaluations(long evaluations) {
+        return status -> status.evaluations >= evaluations;
+    }
+
+    /**
+     * Builds the criterion described by RunConfig, any of the enabled conditions stops the trial
+     * @return
+     */
+    static TerminationCriterion fromConfig() {
+        TerminationCriterion criterion = never();
+        if (RunConfig.TARGET_ERROR >= 0)
+            criterion = criterion.or(targetError(RunConfig.TARGET_ERROR));
+        if (RunConfig.STAGNATION_LIMIT > 0)
+            criterion = criterion.or(stagnation(RunConfig.STAGNATION_LIMIT));
+        if (RunConfig.MIN_DIVERSITY > 0)
+            criterion = criterion.or(diversity(RunConfig.MIN_DIVERSITY));
+        if (RunConfig.MAX_MILLIS > 0)
+            criterion = criterion.or(wallClock(RunConfig.MAX_MILLIS));
+        if (RunConfig.MAX_FES > 0)
+            criterion = criterion.or(maxEvaluations(RunConfig.MAX_FES));
+        return criterion;
+    }
+
+}
@@ -1,7 +1,9 @@
 public class Trainer {
 
     public static void main(String[] args) throws Exception {
-        OptimizationSuite s = new OptimizationSuite(Byte.parseByte(args[0]), (byte) 2);
+        // an optional second argument picks the search, such as "race", the exhaustive grid by default
+        OptimizationSuite.Search search = (args.length > 1) ? OptimizationSuite.Search.parse(args[1]) : OptimizationSuite.Search.GRID;
+        OptimizationSuite s = new OptimizationSuite(Byte.parseByte(args[0]), (byte) 2, search);
         s.train();
     }
 }
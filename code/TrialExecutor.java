@@ -0,0 +1,80 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the independent trials of a simulation concurrently on a shared fork join pool.
+ *
+ * Trials must not share mutable state, each one should build its own optimizer from its own Rng.forTrial stream,
+ * and write only to its own row of the results. The results are then identical no matter how many threads
+ * there are, or in which order the trials are scheduled.
+ */
+public class TrialExecutor {
+
+    /**
+     * The work done by a single trial
+     */
+    @FunctionalInterface
+    public interface Trial {
+        void run(int trial) throws Exception;
+    }
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(RunConfig.TRIAL_THREADS);
+
+    /**
+     * This class is designed to be statically referenced, it should not be instantiable
+     */
+    private TrialExecutor() {
+
+    }
+
+    /**
+     * @return The pool on which the trials are run
+     */
+    public static ForkJoinPool pool() {
+        return POOL;
+    }
+
+    /**
+     * Runs trials 0 to (trials - 1) of the supplied body concurrently, and waits for all of them to finish
+     * @param trials the number of independent trials
+     * @param body the work done by each trial
+     * @throws Exception the first exception thrown by a trial, in trial order, once every trial has finished
+     */
+    public static void runAll(int trials, Trial body) throws Exception {
+        List<Callable<Void>> tasks = new ArrayList<>(trials);
+        for (int trial = 0; trial < trials; trial++) {
+            final int t = trial;
+            tasks.add(() -> {
+                body.run(t);
+                return null;
+            });
+        }
+        for (Future<Void> future : POOL.invokeAll(tasks)) {
+            join(future);
+        }
+    }
+
+    /**
+     * Waits for the future, rethrowing whatever its task threw
+     * @param future
+     * @throws Exception
+     */
+    static void join(Future<?> future) throws Exception {
+        try {
+            future.get();
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception)
+                throw (Exception) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw e;
+        }
+    }
+
+}
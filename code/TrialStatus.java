@@ -0,0 +1,66 @@
+/**
+ * The progress of a single trial, which the termination criteria are checked against.
+ *
+ * The trial calls update() after every iteration. Diversity is only measured when a criterion asks for it, since
+ * it costs a pass over the whole population.
+ */
+public class TrialStatus {
+
+    public final ObjectiveFunction function;
+
+    // the population whose spread is measured for the diversity criterion
+    private final PopulationMatrix population;
+
+    public final long startNanos;
+
+    public int iteration;
+    public double best = Double.POSITIVE_INFINITY;
+    public long evaluations;
+
+    // the last iteration in which the best evaluation improved
+    public int lastImprovement;
+
+    /**
+     * @param function The function the trial is minimizing
+     * @param population The population of the trial, its rows are updated in place as the trial progresses
+     */
+    public TrialStatus(ObjectiveFunction function, PopulationMatrix population) {
+        this.function = function;
+        this.population = population;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Records the state of the trial after an iteration
+     * @param iteration
+     * @param best
+     * @param evaluations
+     */
+    public void update(int iteration, double best, long evaluations) {
+        if (best < this.best) {
+            this.best = best;
+            this.lastImprovement = iteration;
+        }
+        this.iteration = iteration;
+        this.evaluations = evaluations;
+    }
+
+    /**
+     * @return the distance of the best evaluation from the known optimum, or infinity if the optimum is not known
+     */
+    public double error() {
+        return function.optimum().isPresent() ? best - function.optimum().getAsDouble() : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return the spread of the population as a fraction of the domain width
+     */
+    public double diversity() {
+        return population.spread() / (function.upper() - function.lower());
+    }
+
+    public long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+}
@@ -1,4 +1,4 @@
-import java.io.PrintWriter;
+import java.nio.file.Path;
 
 public class Utilities {
 
@@ -21,74 +21,7 @@ public class Utilities {
 
 
     /**
-     * Takes a raw data output array[][], where rows specify independent trials, and each column represents
-     * the recorded observation for the (colNum * granularity)'th trial, and compute the mean of this column
-     * across all rows.
-     * @param data
-     * @return
-     */
-    public static double[] averageAtTime(double[][] data) {
-        double[] averages = new double[data[0].length];
-        for (int col = 0; col < data[0].length; col++){
-            double sum = 0.0;
-            for (int row = 0; row < data.length; row++) {
-                sum += data[row][col];
-            }
-            averages[col] = sum / (double) data.length;
-        }
-
-        double[] var = varAtTime(data);
-        String mean = String.format("%6.2e", averages[averages.length - 1]);
-        String varr = String.format("%6.2e", var[averages.length - 1]);
-
-        int edexMean = mean.indexOf("e");
-        int edexVar = varr.indexOf("e");
-        mean = mean.substring(0, edexMean) + "e^{" + mean.substring(edexMean+1) + "}";
-        varr = varr.substring(0, edexVar) + "e^{" + varr.substring(edexVar+1) + "}";
-        
-
-        return averages;
-
-    }
-
-    /**
-     * Takes a raw data output array[][], where rows specify independent trials, and each column represents
-     * the recorded observation for the (colNum * granularity)'th trial, and compute the variance of this column
-     * across all rows.
-     * @param data
-     * @return
-     */
-    public static double[] varAtTime(double[][] data) {
-
-        double[] vars = new double[data[0].length];
-        for (int col = 0; col < data[0].length; col++){
-            double sum = 0.0;
-            for (int row = 0; row < data.length; row++) {
-                sum += data[row][col];
-            }
-            //we begin by putting the average into this index, to be used in second pass
-            vars[col] = sum / (double) data.length;
-        }
-
-        // second pass, we compute average distance from the average of this column (currently stored in vars[col])
-        for (int col = 0; col < data[0].length; col++) {
-            double diffSum = 0.0;
-            for (int row = 0; row < data.length; row++) {
-                // iteratively sum difference
-                diffSum += Math.pow(Math.abs(data[row][col] - vars[col]), 2);
-            }
-            // var formula
-            vars[col] = diffSum / (double) (data.length - 1);
-        }
-
-        return vars;
-    }
-
-
-
-    /**
-     * Takes the provided file data, computes a string representation of this data, and defers to an overloaded
-     * function writeFile(String) which writes this data to a CSV file
+     * Takes the provided file data, and streams it row by row to a CSV file
      * @param data
      */
     public static void writeFile(double[][] data, String type, byte flag) {
@@ -96,69 +29,23 @@ public class Utilities {
         // if record mode is not true, stop
         if (!RunConfig.RECORD_MODE) return;
 
-        // build up CSV string
-        StringBuilder sb = new StringBuilder(colHeader(data[0]));
-        for (int row = 0; row < data.length; row++) {
-            for (int col = 0; col < data[row].length; col++) {
-                sb.append("" + data[row][col]);
-                if (col < data[row].length - 1)
-                    sb.append(",");
-            }
-            sb.append("\n");
-        }
-
-        // now that the file string is built up, write it to the file
-        writeFile(sb.toString(), type, flag);
+        try {
+            CsvAppender csv = new CsvAppender(Path.of(genFileName(flag, type)), data.length, data[0].length);
+            for (int row = 0; row < data.length; row++)
+                csv.append(row, data[row]);
+            csv.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        } 
     }
 
     /**
-     * Takes the provided file data, computes a string representation of this data, and defers to an overloaded
-     * function writeFile(String) which writes this data to a CSV file
+     * Takes the provided file data, and writes it as a single row CSV file
      * @param data
      */
     public static void writeFile(double[] data, String type, byte flag) {
-        
-        // if record mode is not true, stop
-        if (!RunConfig.RECORD_MODE) return;
-
-        // build up CSV string
-        StringBuilder sb = new StringBuilder(colHeader(data));
-        for (int entry = 0; entry < data.length; entry++) {
-            sb.append("" + data[entry]);
-            if (entry < data.length - 1)
-                sb.append(",");
-        }
-        sb.append("\n");
-
-        // now that the file string is built up, write it to the file
-        writeFile(sb.toString(), type, flag);
-    }
-
-
-
-    private static String colHeader(double[] data) {
-        StringBuilder sb = new StringBuilder();
-        for (int entry = 0; entry < data.length; entry++) {
-            sb.append(entry * RunConfig.GRANULARITY);
-            if (entry < data.length - 1)
-                sb.append(",");
-        }
-        sb.append("\n");
-        return sb.toString();
-    }
-
-
-    /**
-     * Writes the provided string content to a file
-     * @param fileData
-     */
-    private static void writeFile(String fileData, String type, byte flag) {
-        try (PrintWriter writer = new PrintWriter(genFileName(flag, type))) {
-            writer.write(fileData);
-        } catch (Exception e) {
-            e.printStackTrace();
-            System.exit(1);
-        } 
+        writeFile(new double[][] {data}, type, flag);
     }
 
     /**
@@ -1,4 +1,4 @@
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 public class Vector {
 
@@ -34,10 +34,27 @@ public class Vector {
         return new Vector(data);
     }
 
+    /**
+     * returns the backing array of this vector. This is not a copy, writes are visible in the vector
+     * @return
+     */
+    public double[] data() {
+        return this.data;
+    }
+
     public void editIndex(int index, double val) {
         this.data[index] = val;
     }
 
+    /**
+     * Overwrites this vector with size() entries read from src, beginning at offset
+     * @param src
+     * @param offset
+     */
+    public void copyFrom(double[] src, int offset) {
+        System.arraycopy(src, offset, this.data, 0, this.data.length);
+    }
+
 
     /**
      * returns true if vector A dominates Vector B. The usage is boolean res = A.dominates(B)
@@ -190,9 +207,19 @@ public class Vector {
      * @return
      */
     public static Vector ZeroOne(int len) {
+        return ZeroOne(len, Rng.current());
+    }
+
+    /**
+     * Creates a new vector of specified length where values are initialized using Uniform(0, 1), drawn from rng
+     * @param len
+     * @param rng
+     * @return
+     */
+    public static Vector ZeroOne(int len, RandomGenerator rng) {
         double[] data = new double[len];
         for (int i = 0; i < len; i++) {
-            data[i] = Math.random();
+            data[i] = rng.nextDouble();
         }
         return new Vector(data);
     }
@@ -203,10 +230,19 @@ public class Vector {
      * @return
      */
     public static Vector normZeroOne(int len) {
-        Random r = new Random();
+        return normZeroOne(len, Rng.current());
+    }
+
+    /**
+     * Creates a new vector of specified length where values are intalized using Normal(0,1), drawn from rng
+     * @param len
+     * @param rng
+     * @return
+     */
+    public static Vector normZeroOne(int len, RandomGenerator rng) {
         double[] data = new double[len];
         for (int i = 0; i < len; i++) {
-            data[i] = r.nextGaussian();
+            data[i] = rng.nextGaussian();
         }
         return new Vector(data);
     }
@@ -232,11 +268,24 @@ public class Vector {
      * @throws Exception
      */
     public static Vector randBetween(double low, double high, int len) throws Exception {
+        return randBetween(low, high, len, Rng.current());
+    }
+
+    /**
+     * returns a random vector where each element is randomly initialized on the interval [low, high], drawn from rng
+     * @param low The lower bound of the interval
+     * @param high The upper bound of the interval
+     * @param len The length of the desired vector
+     * @param rng The stream to draw from
+     * @return
+     * @throws Exception
+     */
+    public static Vector randBetween(double low, double high, int len, RandomGenerator rng) throws Exception {
         if (high < low)
             throw new Exception("High Bound Precedes Low Bound");
         double[] data = new double[len];
         for (int i = 0; i < len; i++) {
-            data[i] = (high - low) * Math.random() + low;
+            data[i] = (high - low) * rng.nextDouble() + low;
         }
         return new Vector(data);
     }
@@ -381,6 +430,92 @@ public class Vector {
     }
 
 
+    /**
+     * Scales this vector in place by the provided argument. No new vector is allocated
+     * @param scale the scalar multiple by which this vector should be scaled
+     * @return this vector, to allow chaining
+     */
+    public Vector scaleInPlace(double scale) {
+        for (int i = 0; i < this.data.length; i++) {
+            this.data[i] *= scale;
+        }
+        return this;
+    }
+
+    /**
+     * Adds vector b into vector a in place, intuition is A += B. No new vector is allocated
+     * @param that
+     * @return this vector, to allow chaining
+     * @throws Exception if vector lengths are not equivalent
+     */
+    public Vector addInPlace(Vector that) throws Exception {
+        return axpyInPlace(1.0, that);
+    }
+
+    /**
+     * Subtracts vector b from vector a in place, intuition is A -= B. No new vector is allocated
+     * @param that
+     * @return this vector, to allow chaining
+     * @throws Exception if vector lengths are not equivalent
+     */
+    public Vector subInPlace(Vector that) throws Exception {
+        return axpyInPlace(-1.0, that);
+    }
+
+    /**
+     * Computes the index-wise product of two vectors in place, intuition is A_i *= B_i. No new vector is allocated
+     * @param that
+     * @return this vector, to allow chaining
+     * @throws Exception if vector lengths are not equivalent
+     */
+    public Vector prodInPlace(Vector that) throws Exception {
+        if (that == null)
+            throw new NullPointerException();
+        if (this.data.length != that.data.length)
+            throw new Exception("Vector Length Mismatch");
+        for (int i = 0; i < this.data.length; i++) {
+            this.data[i] *= that.data[i];
+        }
+        return this;
+    }
+
+    /**
+     * Adds a scaled vector b into vector a in place, intuition is A += a * B. No new vector is allocated
+     * @param a the scalar multiple of vector b
+     * @param that
+     * @return this vector, to allow chaining
+     * @throws Exception if vector lengths are not equivalent
+     */
+    public Vector axpyInPlace(double a, Vector that) throws Exception {
+        if (that == null)
+            throw new NullPointerException();
+        if (this.data.length != that.data.length)
+            throw new Exception("Vector Length Mismatch");
+        for (int i = 0; i < this.data.length; i++) {
+            this.data[i] += a * that.data[i];
+        }
+        return this;
+    }
+
+    /**
+     * Fused multiply-add into a destination vector, intuition is DEST_i += a * X_i * Y_i.
+     * No new vector is allocated
+     * @param dest the vector which accumulates the result
+     * @param a the scalar multiple of the index-wise product
+     * @param x
+     * @param y
+     * @throws Exception if vector lengths are not equivalent
+     */
+    public static void fmaInto(Vector dest, double a, Vector x, Vector y) throws Exception {
+        if (dest == null || x == null || y == null)
+            throw new NullPointerException();
+        if (dest.data.length != x.data.length || x.data.length != y.data.length)
+            throw new Exception("Vector Length Mismatch");
+        for (int i = 0; i < dest.data.length; i++) {
+            dest.data[i] += a * x.data[i] * y.data[i];
+        }
+    }
+
     /**
      * Compute the sin of this vector, returns the result in a new vector
      * @return
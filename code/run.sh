@@ -1,11 +1,19 @@
 clear
 javac *.java
+# the SIMD kernels need the incubating vector module, without them evaluation falls back to the scalar kernels
+javac -cp . -d . --add-modules jdk.incubator.vector simd/*.java || echo "\033[0;33mSIMD kernels failed to compile, falling back to the scalar kernels\033[0m"
+
+# the evaluation kernels, the DE crossover, the merged statistics and sketches must match their references before any results are produced
+java --add-modules jdk.incubator.vector KernelCheck || exit 1
+java CrossoverCheck || exit 1
+java DeltaCheck || exit 1
+java StatsCheck || exit 1
+java SketchCheck || exit 1
 
 echo "\033[0;46mStarting Simulation: \033[0m"
-for FLAG in 1 4 5 2 3 9 8 6 10
-do
-    java Driver $FLAG    
-done
+# every algorithm on each of these functions, all trials share one JVM and one thread pool.
+# DE uses binomial crossover (DE/rand/1/bin), add -Dde.binomial=false for the exponential crossover the tuned parameters were found with
+java --add-modules jdk.incubator.vector BatchRunner 1 4 5 2 3 9 8 6 10
 rm *.class
 
 python3 plotter.py
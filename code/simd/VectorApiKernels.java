@@ -0,0 +1,186 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD implementation of the benchmark kernels, built on the incubating JDK Vector API.
+ *
+ * This file is kept apart from the rest of the sources because it only compiles and links with
+ * --add-modules jdk.incubator.vector. SingleObjectiveFunctions loads it reflectively, and falls back to
+ * the scalar kernels if the class or the module is absent.
+ *
+ * Each kernel runs the main loop over full vectors of the preferred species (8 lanes on AVX-512 hosts,
+ * 4 on AVX2), and finishes the remaining tail entries with scalar code.
+ */
+public class VectorApiKernels implements ObjectiveKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    // (0, 1, 2, ...) across the lanes, used to build the ascending weights (i + 1)
+    private static final DoubleVector IOTA = DoubleVector.zero(SPECIES).addIndex(1);
+
+    // 2^52, the magnitude above which every double is an integer
+    private static final double TWO_52 = 4503599627370496.0;
+
+    public double ellip(double[] x, int off, int len) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        DoubleVector weight = IOTA.add(1.0);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, x, off + i);
+            acc = v.mul(v).fma(weight, acc);
+            weight = weight.add(LANES);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) {
+            sum += (i + 1) * (x[off + i] * x[off + i]);
+        }
+        return sum;
+    }
+
+    public double ackley(double[] x, int off, int len) {
+        double a = 20;
+        double b = 0.2;
+        double c = 2 * Math.PI;
+
+        DoubleVector squares = DoubleVector.zero(SPECIES);
+        DoubleVector cosines = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, x, off + i);
+            squares = v.fma(v, squares);
+            cosines = cosines.add(v.mul(c).lanewise(VectorOperators.COS));
+        }
+        double sumSquares = squares.reduceLanes(VectorOperators.ADD);
+        double sumCos = cosines.reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) {
+            sumSquares += x[off + i] * x[off + i];
+            sumCos += Math.cos(c * x[off + i]);
+        }
+        double firstTerm = -a * Math.exp(-b * Math.sqrt(sumSquares / len));
+        double secondTerm = Math.exp(sumCos / len);
+
+        return firstTerm - secondTerm + a + Math.E;
+    }
+
+    public double rastrigin(double[] x, int off, int len) {
+        double a = 10;
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, x, off + i);
+            DoubleVector cos = v.mul(2 * Math.PI).lanewise(VectorOperators.COS);
+            acc = acc.add(v.mul(v).sub(cos.mul(a)));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) {
+            sum += x[off + i] * x[off + i] - a * Math.cos(2 * Math.PI * x[off + i]);
+        }
+        return a * len + sum;
+    }
+
+    public double step(double[] x, int off, int len) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, x, off + i);
+            // clamp so the lanes saturate like the scalar (int) cast, which also maps NaN to 0
+            DoubleVector sq = v.mul(v).min((double) Integer.MAX_VALUE);
+            sq = sq.blend(0.0, sq.test(VectorOperators.IS_NAN));
+            // adding and removing 2^52 rounds to an integer, step back down where that rounded up
+            DoubleVector rounded = sq.add(TWO_52).sub(TWO_52);
+            acc = acc.add(rounded.lanewise(VectorOperators.SUB, 1.0, rounded.compare(VectorOperators.GT, sq)));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) {
+            sum += (int) (x[off + i] * x[off + i]);
+        }
+        return sum;
+    }
+
+    public double cosMix(double[] x, int off, int len) {
+        DoubleVector squares = DoubleVector.zero(SPECIES);
+        DoubleVector cosines = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, x, off + i);
+            squares = v.fma(v, squares);
+            cosines = cosines.add(v.mul(5 * Math.PI).lanewise(VectorOperators.COS));
+        }
+        double sumSquares = squares.reduceLanes(VectorOperators.ADD);
+        double sumCos = cosines.reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) {
+            sumCos += Math.cos(5 * Math.PI * x[off + i]);
+            sumSquares += x[off + i] * x[off + i];
+        }
+        return -0.1 * sumCos + sumSquares + 0.1 * len;
+    }
+
+    public double quartic(double[] x, int off, int len) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        DoubleVector weight = IOTA.add(1.0);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, x, off + i);
+            DoubleVector sq = v.mul(v);
+            acc = sq.mul(sq).fma(weight, acc);
+            weight = weight.add(LANES);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) {
+            double sq = x[off + i] * x[off + i];
+            sum += (i + 1) * (sq * sq);
+        }
+        return sum;
+    }
+
+    public double zakharov(double[] x, int off, int len) {
+        DoubleVector squares = DoubleVector.zero(SPECIES);
+        DoubleVector weighted = DoubleVector.zero(SPECIES);
+        DoubleVector weight = IOTA.add(1.0).mul(0.5);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, x, off + i);
+            squares = v.fma(v, squares);
+            weighted = weight.fma(v, weighted);
+            weight = weight.add(0.5 * LANES);
+        }
+        double firstComp = squares.reduceLanes(VectorOperators.ADD);
+        double weightedSum = weighted.reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) {
+            double xi = x[off + i];
+            firstComp += xi * xi;
+            weightedSum += 0.5 * (i + 1) * xi;
+        }
+        double secondComp = weightedSum * weightedSum;
+        return firstComp + secondComp + secondComp * secondComp;
+    }
+
+    public double salomon(double[] x, int off, int len) {
+        double term = Math.sqrt(sumSquares(x, off, len));
+        return 1 - Math.cos(2 * Math.PI * term) + 0.1 * term;
+    }
+
+    public double bentCigar(double[] x, int off, int len) {
+        return x[off] * x[off] + 1_000_000.0 * sumSquares(x, off + 1, len - 1);
+    }
+
+    /**
+     * Sum of squares of the len entries of x beginning at off
+     */
+    private static double sumSquares(double[] x, int off, int len) {
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, x, off + i);
+            acc = v.fma(v, acc);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) {
+            sum += x[off + i] * x[off + i];
+        }
+        return sum;
+    }
+
+}